@@ -157,7 +157,7 @@ public class MainWindow extends JFrame {
             runButton.setEnabled(false);
             resultArea.setText("Running optimization...\n");
             
-            SwingWorker<String, Void> worker = new SwingWorker<>() {
+            SwingWorker<String, String> worker = new SwingWorker<>() {
                 @Override
                 protected String doInBackground() throws Exception {
                     long startTime = System.currentTimeMillis();
@@ -176,7 +176,15 @@ public class MainWindow extends JFrame {
                     
                     ACOOptimizer optimizer = new ACOOptimizer(useky, turnusy, 
                         batteryCapacity, minBatteryLevel, consumption, chargingRate);
-                    List<Boolean> solution = optimizer.optimize();
+                    optimizer.setPreprocessing(true);
+                    resultArea.append("Preprocessing: " + optimizer.getReduction() + "\n");
+                    optimizer.setReportInterval(10);
+                    optimizer.addListener((iteration, bestLength, iterationBestLength, feasibleAnts, elapsedNanos) ->
+                        publish(String.format("Iteration %d: best %.2f m, iteration best %s, feasible ants %d (%.1f s)\n",
+                            iteration, bestLength,
+                            iterationBestLength < Double.MAX_VALUE ? String.format("%.2f m", iterationBestLength) : "-",
+                            feasibleAnts, elapsedNanos / 1e9)));
+                    Solution solution = optimizer.optimize();
                     
                     long endTime = System.currentTimeMillis();
                     String endTimeStr = new java.text.SimpleDateFormat("HH:mm:ss.SSS")
@@ -193,13 +201,11 @@ public class MainWindow extends JFrame {
                     Map<Integer, List<Usek>> nodeConnections = new TreeMap<>();
                     double totalWiringLength = 0;
                     
-                    for (int i = 0; i < solution.size(); i++) {
-                        if (solution.get(i)) {
-                            Usek usek = useky.get(i);
-                            totalWiringLength += usek.getDistance();
-                            
-                             nodeConnections.computeIfAbsent(usek.getNode1Id(), k -> new ArrayList<>()).add(usek);
-                        }
+                    for (int i = solution.nextSetBit(0); i >= 0; i = solution.nextSetBit(i + 1)) {
+                        Usek usek = useky.get(i);
+                        totalWiringLength += usek.getDistance();
+                        
+                         nodeConnections.computeIfAbsent(usek.getNode1Id(), k -> new ArrayList<>()).add(usek);
                     }
                     
                     result.append("Required wiring segments by node:\n");
@@ -219,14 +225,12 @@ public class MainWindow extends JFrame {
                     result.append("=============\n");
                     
                     Map<Integer, Set<Integer>> connections = new HashMap<>();
-                    for (int i = 0; i < solution.size(); i++) {
-                        if (solution.get(i)) {
-                            Usek usek = useky.get(i);
-                            connections.computeIfAbsent(usek.getNode1Id(), k -> new HashSet<>())
-                                .add(usek.getNode2Id());
-                            connections.computeIfAbsent(usek.getNode2Id(), k -> new HashSet<>())
-                                .add(usek.getNode1Id());
-                        }
+                    for (int i = solution.nextSetBit(0); i >= 0; i = solution.nextSetBit(i + 1)) {
+                        Usek usek = useky.get(i);
+                        connections.computeIfAbsent(usek.getNode1Id(), k -> new HashSet<>())
+                            .add(usek.getNode2Id());
+                        connections.computeIfAbsent(usek.getNode2Id(), k -> new HashSet<>())
+                            .add(usek.getNode1Id());
                     }
                     
                     Set<Integer> visited = new HashSet<>();
@@ -246,10 +250,10 @@ public class MainWindow extends JFrame {
                     result.append("\nSummary:\n");
                     result.append("========\n");
                     result.append(String.format("Total segments to wire: %d\n", 
-                        solution.stream().filter(b -> b).count()));
+                        solution.cardinality()));
                     result.append(String.format("Total wiring length: %.2f meters\n", totalWiringLength));
                     result.append(String.format("Average segment length: %.2f meters", 
-                        totalWiringLength / solution.stream().filter(b -> b).count()));
+                        totalWiringLength / solution.cardinality()));
                     
                     return result.toString();
                 }
@@ -269,12 +273,19 @@ public class MainWindow extends JFrame {
                     }
                 }
                 
+                @Override
+                protected void process(List<String> progress) {
+                    for (String line : progress) {
+                        resultArea.append(line);
+                    }
+                }
+                
                 @Override
                 protected void done() {
                     try {
-                        resultArea.setText(get());
+                        resultArea.append("\n" + get());
                     } catch (Exception ex) {
-                        resultArea.setText("Error: " + ex.getMessage());
+                        resultArea.append("\nError: " + ex.getMessage());
                         ex.printStackTrace(); 
                     } finally {
                         runButton.setEnabled(true);
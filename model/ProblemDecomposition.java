@@ -0,0 +1,108 @@
+package model;
+
+import java.util.*;
+
+public class ProblemDecomposition {
+    private final ProblemInstance instance;
+    private final List<Component> components;
+
+    public static class Component {
+        private final int[] turnusy;
+        private final int[] segments;
+        private final ProblemInstance instance;
+
+        Component(ProblemInstance parent, int[] turnusy, int[] segments) {
+            this.turnusy = turnusy;
+            this.segments = segments;
+            this.instance = parent.restrict(turnusy, segments);
+        }
+
+        public void mapInto(Solution local, Solution global) {
+            for (int i = 0; i < segments.length; i++) {
+                global.set(segments[i], local.get(i));
+            }
+        }
+
+        public Solution extract(Solution global) {
+            Solution local = new Solution(segments.length);
+            for (int i = 0; i < segments.length; i++) {
+                local.set(i, global.get(segments[i]));
+            }
+            return local;
+        }
+
+        public int[] getTurnusy() { return turnusy; }
+        public int[] getSegments() { return segments; }
+        public ProblemInstance getInstance() { return instance; }
+        public int getSegmentCount() { return segments.length; }
+    }
+
+    private ProblemDecomposition(ProblemInstance instance, List<Component> components) {
+        this.instance = instance;
+        this.components = components;
+    }
+
+    // Turnusy sharing a segment, directly or through other turnusy, end up in the same
+    // component; each component can be wired independently of the others.
+    public static ProblemDecomposition decompose(ProblemInstance instance) {
+        int turnusCount = instance.getTurnusCount();
+        int[] parent = new int[turnusCount];
+        for (int t = 0; t < turnusCount; t++) {
+            parent[t] = t;
+        }
+        for (int s = 0; s < instance.getSegmentCount(); s++) {
+            int[] turnusy = instance.getSegmentTurnusy(s);
+            for (int i = 1; i < turnusy.length; i++) {
+                int a = find(parent, turnusy[0]);
+                int b = find(parent, turnusy[i]);
+                if (a != b) {
+                    parent[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> turnusyByRoot = new LinkedHashMap<>();
+        for (int t = 0; t < turnusCount; t++) {
+            turnusyByRoot.computeIfAbsent(find(parent, t), k -> new ArrayList<>()).add(t);
+        }
+
+        boolean[] seen = new boolean[instance.getSegmentCount()];
+        List<Component> components = new ArrayList<>();
+        for (List<Integer> members : turnusyByRoot.values()) {
+            int[] turnusy = members.stream().mapToInt(Integer::intValue).toArray();
+            List<Integer> segments = new ArrayList<>();
+            for (int t : turnusy) {
+                for (int segment : instance.getTurnusSegments(t)) {
+                    if (!seen[segment]) {
+                        seen[segment] = true;
+                        segments.add(segment);
+                    }
+                }
+            }
+            Collections.sort(segments);
+            components.add(new Component(instance, turnusy,
+                                         segments.stream().mapToInt(Integer::intValue).toArray()));
+        }
+        components.sort((a, b) -> Integer.compare(b.getSegmentCount(), a.getSegmentCount()));
+        return new ProblemDecomposition(instance, components);
+    }
+
+    private static int find(int[] parent, int t) {
+        while (parent[t] != t) {
+            parent[t] = parent[parent[t]];
+            t = parent[t];
+        }
+        return t;
+    }
+
+    public int getComponentCount() { return components.size(); }
+    public Component getComponent(int index) { return components.get(index); }
+    public List<Component> getComponents() { return Collections.unmodifiableList(components); }
+    public ProblemInstance getInstance() { return instance; }
+
+    @Override
+    public String toString() {
+        return String.format("ProblemDecomposition{components=%d, largest=%d segments}",
+            components.size(), components.isEmpty() ? 0 : components.get(0).getSegmentCount());
+    }
+}
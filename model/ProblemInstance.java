@@ -0,0 +1,219 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ProblemInstance {
+    private final double[] distances;
+    private final int[][] turnusSegments;
+    private final double[][] turnusPrefixDistances;
+    private final int[] segmentUsage;
+    private final int maxSegmentUsage;
+    private final int[][] segmentTurnusy;
+    private final int[][] segmentOccurrences;
+    private final int maxTurnusLength;
+
+    private final double maxBatteryCapacity;
+    private final double minBatteryLevel;
+    private final double consumptionRate;
+    private final double chargingRate;
+    private final double batteryFloor;
+    private final double maxDistanceWithoutCharging;
+
+    private ProblemInstance(double[] distances, int[][] turnusSegments,
+                            double maxBatteryCapacity, double minBatteryLevel,
+                            double consumptionRate, double chargingRate) {
+        this.distances = distances;
+        this.turnusSegments = turnusSegments;
+        this.maxBatteryCapacity = maxBatteryCapacity;
+        this.minBatteryLevel = minBatteryLevel;
+        this.consumptionRate = consumptionRate;
+        this.chargingRate = chargingRate;
+        this.batteryFloor = maxBatteryCapacity * 0.2;
+        this.maxDistanceWithoutCharging = maxBatteryCapacity / consumptionRate * 0.8;
+
+        int segmentCount = distances.length;
+        this.turnusPrefixDistances = new double[turnusSegments.length][];
+        this.segmentUsage = new int[segmentCount];
+        int[] turnusCount = new int[segmentCount];
+        int[] lastTurnus = new int[segmentCount];
+        Arrays.fill(lastTurnus, -1);
+
+        for (int t = 0; t < turnusSegments.length; t++) {
+            int[] sequence = turnusSegments[t];
+            double[] prefix = new double[sequence.length + 1];
+            for (int i = 0; i < sequence.length; i++) {
+                int segment = sequence[i];
+                prefix[i + 1] = prefix[i] + distances[segment];
+                segmentUsage[segment]++;
+                if (lastTurnus[segment] != t) {
+                    lastTurnus[segment] = t;
+                    turnusCount[segment]++;
+                }
+            }
+            turnusPrefixDistances[t] = prefix;
+        }
+
+        int maxLength = 0;
+        for (int[] sequence : turnusSegments) {
+            maxLength = Math.max(maxLength, sequence.length);
+        }
+        this.maxTurnusLength = maxLength;
+
+        int maxUsage = 0;
+        for (int usage : segmentUsage) {
+            maxUsage = Math.max(maxUsage, usage);
+        }
+        this.maxSegmentUsage = maxUsage > 0 ? maxUsage : 1;
+
+        this.segmentTurnusy = new int[segmentCount][];
+        for (int s = 0; s < segmentCount; s++) {
+            segmentTurnusy[s] = new int[turnusCount[s]];
+        }
+        int[] fill = new int[segmentCount];
+        Arrays.fill(lastTurnus, -1);
+        for (int t = 0; t < turnusSegments.length; t++) {
+            for (int segment : turnusSegments[t]) {
+                if (lastTurnus[segment] != t) {
+                    lastTurnus[segment] = t;
+                    segmentTurnusy[segment][fill[segment]++] = t;
+                }
+            }
+        }
+
+        this.segmentOccurrences = new int[segmentCount][];
+        for (int s = 0; s < segmentCount; s++) {
+            segmentOccurrences[s] = new int[2 * segmentUsage[s]];
+        }
+        Arrays.fill(fill, 0);
+        for (int t = 0; t < turnusSegments.length; t++) {
+            int[] sequence = turnusSegments[t];
+            for (int i = 0; i < sequence.length; i++) {
+                int[] occurrences = segmentOccurrences[sequence[i]];
+                occurrences[fill[sequence[i]]++] = t;
+                occurrences[fill[sequence[i]]++] = i;
+            }
+        }
+    }
+
+    public static ProblemInstance compile(List<Usek> useky, List<Turnus> turnusy,
+                                          double maxBatteryCapacity, double minBatteryLevel,
+                                          double consumptionRate, double chargingRate) {
+        double[] distances = new double[useky.size()];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = useky.get(i).getDistance();
+        }
+
+        int[][] turnusSegments = new int[turnusy.size()][];
+        for (int t = 0; t < turnusSegments.length; t++) {
+            List<Integer> indices = turnusy.get(t).getUskyIndices();
+            int[] sequence = new int[indices.size()];
+            for (int i = 0; i < sequence.length; i++) {
+                sequence[i] = indices.get(i);
+            }
+            turnusSegments[t] = sequence;
+        }
+
+        return new ProblemInstance(distances, turnusSegments, maxBatteryCapacity,
+                                   minBatteryLevel, consumptionRate, chargingRate);
+    }
+
+    // Sub-instance over the given turnusy; segments[i] becomes local segment i.
+    public ProblemInstance restrict(int[] turnusy, int[] segments) {
+        int[] localIndex = new int[distances.length];
+        Arrays.fill(localIndex, -1);
+        double[] subDistances = new double[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            localIndex[segments[i]] = i;
+            subDistances[i] = distances[segments[i]];
+        }
+
+        int[][] subSegments = new int[turnusy.length][];
+        for (int t = 0; t < turnusy.length; t++) {
+            int[] sequence = turnusSegments[turnusy[t]];
+            subSegments[t] = new int[sequence.length];
+            for (int i = 0; i < sequence.length; i++) {
+                if (localIndex[sequence[i]] < 0) {
+                    throw new IllegalArgumentException("turnus " + turnusy[t] + " uses segment "
+                                                       + sequence[i] + " outside the sub-instance");
+                }
+                subSegments[t][i] = localIndex[sequence[i]];
+            }
+        }
+        return new ProblemInstance(subDistances, subSegments, maxBatteryCapacity,
+                                   minBatteryLevel, consumptionRate, chargingRate);
+    }
+
+    public boolean isTurnusValid(int turnus, Solution wiring) {
+        int[] sequence = turnusSegments[turnus];
+        double currentBattery = maxBatteryCapacity;
+        double distanceFromLastCharge = 0;
+
+        for (int i = 0; i < sequence.length; i++) {
+            int segment = sequence[i];
+            double segmentLength = distances[segment];
+            double predictedBattery = currentBattery - segmentLength * consumptionRate;
+
+            if (predictedBattery < batteryFloor || predictedBattery <= 0) {
+                return false;
+            }
+
+            if (wiring.get(segment)) {
+                currentBattery = Math.min(maxBatteryCapacity, currentBattery + segmentLength * chargingRate);
+                distanceFromLastCharge = 0;
+            } else {
+                currentBattery = predictedBattery;
+                distanceFromLastCharge += segmentLength;
+            }
+
+            if (distanceFromLastCharge > maxDistanceWithoutCharging) {
+                return false;
+            }
+        }
+
+        return currentBattery >= batteryFloor;
+    }
+
+    public boolean isValid(Solution wiring) {
+        for (int t = 0; t < turnusSegments.length; t++) {
+            if (!isTurnusValid(t, wiring)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public double length(Solution wiring) {
+        return wiring.length(distances);
+    }
+
+    public int getSegmentCount() { return distances.length; }
+    public int getTurnusCount() { return turnusSegments.length; }
+    public int getMaxTurnusLength() { return maxTurnusLength; }
+    public double getDistance(int segment) { return distances[segment]; }
+    public int getSegmentUsage(int segment) { return segmentUsage[segment]; }
+    public int getMaxSegmentUsage() { return maxSegmentUsage; }
+
+    // Read-only views of the internal arrays, returned without copying for the solver's inner loops.
+    // Writing to them corrupts the instance for every optimizer sharing it; code outside the solver
+    // uses the copy* accessors below.
+    public double[] getDistances() { return distances; }
+    public int[] getTurnusSegments(int turnus) { return turnusSegments[turnus]; }
+    public double[] getTurnusPrefixDistances(int turnus) { return turnusPrefixDistances[turnus]; }
+    public int[] getSegmentTurnusy(int segment) { return segmentTurnusy[segment]; }
+    // Pairs of (turnus, position) for every place the segment is traversed.
+    public int[] getSegmentOccurrences(int segment) { return segmentOccurrences[segment]; }
+
+    public double[] copyDistances() { return distances.clone(); }
+    public int[] copyTurnusSegments(int turnus) { return turnusSegments[turnus].clone(); }
+    public double[] copyTurnusPrefixDistances(int turnus) { return turnusPrefixDistances[turnus].clone(); }
+    public int[] copySegmentTurnusy(int segment) { return segmentTurnusy[segment].clone(); }
+    public int[] copySegmentOccurrences(int segment) { return segmentOccurrences[segment].clone(); }
+
+    public double getMaxBatteryCapacity() { return maxBatteryCapacity; }
+    public double getMinBatteryLevel() { return minBatteryLevel; }
+    public double getConsumptionRate() { return consumptionRate; }
+    public double getChargingRate() { return chargingRate; }
+    public double getBatteryFloor() { return batteryFloor; }
+    public double getMaxDistanceWithoutCharging() { return maxDistanceWithoutCharging; }
+}
@@ -0,0 +1,103 @@
+package model;
+
+public class ProblemReduction {
+    private final int segmentCount;
+    private final Solution fixed;
+    private final Solution forcedWiring;
+    private final int[] freeSegments;
+    private final int[] forcedSegments;
+    private final int[] unusedSegments;
+    private final double forcedLength;
+    private final boolean feasible;
+
+    private ProblemReduction(ProblemInstance instance, Solution fixed, Solution forcedWiring, boolean feasible) {
+        this.segmentCount = instance.getSegmentCount();
+        this.fixed = fixed;
+        this.forcedWiring = forcedWiring;
+        this.feasible = feasible;
+        this.forcedLength = instance.length(forcedWiring);
+
+        int forcedCount = forcedWiring.cardinality();
+        int fixedCount = fixed.cardinality();
+        this.freeSegments = new int[segmentCount - fixedCount];
+        this.forcedSegments = new int[forcedCount];
+        this.unusedSegments = new int[fixedCount - forcedCount];
+
+        int free = 0, forced = 0, unused = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            if (!fixed.get(i)) {
+                freeSegments[free++] = i;
+            } else if (forcedWiring.get(i)) {
+                forcedSegments[forced++] = i;
+            } else {
+                unusedSegments[unused++] = i;
+            }
+        }
+    }
+
+    // Segments used by no turnus can stay unwired; a segment is forced when even wiring
+    // everything else leaves some turnus without enough battery, since extra wiring never hurts.
+    public static ProblemReduction analyze(ProblemInstance instance) {
+        int segmentCount = instance.getSegmentCount();
+        Solution fixed = new Solution(segmentCount);
+        Solution forcedWiring = new Solution(segmentCount);
+        Solution wiring = Solution.allWired(segmentCount);
+        boolean feasible = instance.isValid(wiring);
+
+        for (int i = 0; i < segmentCount; i++) {
+            if (instance.getSegmentUsage(i) == 0) {
+                fixed.set(i, true);
+                continue;
+            }
+            if (!feasible) {
+                continue;
+            }
+            wiring.set(i, false);
+            for (int t : instance.getSegmentTurnusy(i)) {
+                if (!instance.isTurnusValid(t, wiring)) {
+                    fixed.set(i, true);
+                    forcedWiring.set(i, true);
+                    break;
+                }
+            }
+            wiring.set(i, true);
+        }
+
+        return new ProblemReduction(instance, fixed, forcedWiring, feasible);
+    }
+
+    public static ProblemReduction none(ProblemInstance instance) {
+        int segmentCount = instance.getSegmentCount();
+        return new ProblemReduction(instance, new Solution(segmentCount), new Solution(segmentCount),
+                                    instance.isValid(Solution.allWired(segmentCount)));
+    }
+
+    public void applyTo(Solution solution) {
+        for (int segment : forcedSegments) {
+            solution.set(segment, true);
+        }
+        for (int segment : unusedSegments) {
+            solution.set(segment, false);
+        }
+    }
+
+    public boolean isFixed(int segment) { return fixed.get(segment); }
+    public boolean isForced(int segment) { return forcedWiring.get(segment); }
+    public Solution getFixedSegments() { return fixed; }
+    public Solution getForcedWiring() { return forcedWiring; }
+    public int[] getFreeSegments() { return freeSegments; }
+    public int getSegmentCount() { return segmentCount; }
+    public int getFreeCount() { return freeSegments.length; }
+    public int getForcedCount() { return forcedSegments.length; }
+    public int getUnusedCount() { return unusedSegments.length; }
+    public double getForcedLength() { return forcedLength; }
+    public boolean isFeasible() { return feasible; }
+
+    @Override
+    public String toString() {
+        return String.format("ProblemReduction{segments=%d, unused=%d, forced=%d (%.2f m), free=%d (%.1f%%)%s}",
+            segmentCount, getUnusedCount(), getForcedCount(), forcedLength, getFreeCount(),
+            segmentCount > 0 ? 100.0 * getFreeCount() / segmentCount : 0.0,
+            feasible ? "" : ", infeasible even fully wired");
+    }
+}
@@ -0,0 +1,180 @@
+package model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class Solution {
+    private final int size;
+    private final long[] words;
+
+    public Solution(int size) {
+        this.size = size;
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    public Solution(Solution other) {
+        this.size = other.size;
+        this.words = other.words.clone();
+    }
+
+    public static Solution allWired(int size) {
+        Solution solution = new Solution(size);
+        solution.setAll(true);
+        return solution;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void set(int index, boolean wired) {
+        if (wired) {
+            words[index >>> 6] |= 1L << index;
+        } else {
+            words[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    public void flip(int index) {
+        words[index >>> 6] ^= 1L << index;
+    }
+
+    public void setAll(boolean wired) {
+        Arrays.fill(words, wired ? -1L : 0L);
+        if (wired) {
+            clearTail();
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex >= size) {
+            return -1;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    public double length(double[] distances) {
+        double totalLength = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                totalLength += distances[(w << 6) + Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+        }
+        return totalLength;
+    }
+
+    public double length(List<Usek> useky) {
+        double totalLength = 0;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            totalLength += useky.get(i).getDistance();
+        }
+        return totalLength;
+    }
+
+    public int hammingDistance(Solution other) {
+        int distance = 0;
+        for (int w = 0; w < words.length; w++) {
+            distance += Long.bitCount(words[w] ^ other.words[w]);
+        }
+        return distance;
+    }
+
+    public long hash64(long seed) {
+        long hash = seed ^ (size * 0x9E3779B97F4A7C15L);
+        for (long word : words) {
+            hash ^= word;
+            hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+            hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            hash ^= hash >>> 33;
+        }
+        return hash;
+    }
+
+    public void copyFrom(Solution other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    public Solution copy() {
+        return new Solution(this);
+    }
+
+    public int wordCount() {
+        return words.length;
+    }
+
+    public long getWord(int wordIndex) {
+        return words[wordIndex];
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    public static Solution readFrom(DataInput in) throws IOException {
+        Solution solution = new Solution(in.readInt());
+        for (int w = 0; w < solution.words.length; w++) {
+            solution.words[w] = in.readLong();
+        }
+        solution.clearTail();
+        return solution;
+    }
+
+    private void clearTail() {
+        int tailBits = size & 63;
+        if (tailBits != 0) {
+            words[words.length - 1] &= (1L << tailBits) - 1;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Solution)) return false;
+        Solution other = (Solution) o;
+        return size == other.size && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Solution{size=%d, wired=%d}", size, cardinality());
+    }
+}
@@ -15,7 +15,7 @@ public class Turnus {
         this.usekyIndex = usekyIndex;
     }
 
-    public boolean isValidBatteryState(List<Usek> useky, List<Boolean> wiringConfiguration, 
+    public boolean isValidBatteryState(List<Usek> useky, Solution wiringConfiguration, 
                                      double maxBatteryCapacity, double consumptionPerMeter, 
                                      double chargingRatePerMeter) {
         double currentBattery = maxBatteryCapacity;
@@ -1,10 +1,41 @@
 package optimization;
 
+import model.ProblemInstance;
+import model.ProblemReduction;
+import model.Solution;
 import model.Turnus;
 import model.Usek;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class ACOOptimizer {
+    public enum ConstructionMode {
+        INDEPENDENT,
+        BATTERY_AWARE,
+        WINDOWED
+    }
+
+    public enum PheromoneUpdate {
+        ANT_SYSTEM,
+        MAX_MIN
+    }
+
+    public enum LocalSearchPolicy {
+        GLOBAL_BEST,
+        ITERATION_BEST,
+        EVERY_ANT
+    }
+
+    // Part of describeSettings, which keys stored tuning results. It must be bumped with every change
+    // that alters the result of a run for a given seed and settings, or stale results get reused.
+    public static final int ALGORITHM_VERSION = 2;
+
     private int NUM_ANTS = 50;             // Number of ants (N)        
     private int MAX_ITERATIONS = 1000;     // Max iterations    
     private double ALPHA = 1.0;            // α - Pheromone influence
@@ -14,146 +45,669 @@ public class ACOOptimizer {
     private double TAU_0 = 0.001;          // τ₀ - Initial pheromone  
     private double P_0 = 0.01;              // p₀ - Exploration probability  
     private int ELITE_SOLUTIONS = 10;       // Elite solutions  
+    private int ELITE_MIN_DISTANCE = 0;     // Min Hamming distance between elites (0 = off)
+    private int PARALLELISM = 1;            // Threads constructing ants
+    private long seed = System.nanoTime();  // Master seed of all random streams
+    private ConstructionMode constructionMode = ConstructionMode.INDEPENDENT;
+    private PheromoneUpdate pheromoneUpdate = PheromoneUpdate.ANT_SYSTEM;
+    private LocalSearch localSearch = new RandomChunkLocalSearch();
+    private LocalSearchPolicy localSearchPolicy = LocalSearchPolicy.GLOBAL_BEST;
+    private double P_BEST = 0.05;           // MMAS probability of rebuilding the best solution
+    private int STAGNATION_LIMIT = 250;     // MMAS iterations without improvement before restart
+    private int REPORT_INTERVAL = 1;        // Iterations between listener notifications
+    private double WARM_START_FACTOR = 5.0; // Pheromone ratio favouring the warm start choice
+    private int CHECKPOINT_INTERVAL = 100;   // Iterations between checkpoints
 
-    private final List<Usek> useky;
-    private final List<Turnus> turnusy;
+    private final ProblemInstance instance;
+    private final int segmentCount;
+    private final double[] distances;
     private final double maxBatteryCapacity;
     private final double minBatteryLevel;
     private final double consumptionRate;
-    private final double chargingRate;
+    private ProblemReduction reduction;
+    private int[] freeSegments;
    
-    private double[][] pheromones;
-    private List<Boolean> bestSolution;
+    private double[] pheromones;            // Unwired plane [0, n), wired plane [n, 2n)
+    private boolean tau0Changed;            // setTau0 since the trails were last initialised
+    private final PheromoneKernels kernels = PheromoneKernels.create();
+    private Solution[] depositSolutions;
+    private double[] depositAmounts;
+    private final double[] heuristic;
+    private final double[] heuristicWired;
+    private final double[] heuristicUnwired;
+    private double heuristicBeta = Double.NaN;
+    private final double[] pheromoneWired;
+    private final double[] pheromoneUnwired;
+    private final double[] wiringProbability;
+    private Solution bestSolution;
     private double bestSolutionLength;
+    private int runCount;
+    private DeltaEvaluator evaluator;
+    private FeasibilityCache feasibilityCache;
+    private Solution warmStart;
+    private Path checkpointFile;
+    private BatteryAwareBuilder[] builders;
+    private WindowedBuilder[] windowedBuilders;
+    private int[][] windowReach;
+    private DeltaEvaluator[] antEvaluators;
+    private BatchFeasibilityEvaluator batchEvaluator;
+    private boolean batchEvaluation;
+    private long constructedAnts;
+    private long feasibleAnts;
+    private double tauMin;
+    private double tauMax;
+    private int pheromoneRestarts;
+
+    private long runSeed;
+    private ForkJoinPool pool;
+    private int iteration;
+    private int lastImprovement;
+    private int lastRestart;
+    private EliteArchive eliteArchive = new EliteArchive(ELITE_SOLUTIONS);
+    private Solution[] antSolutions;
+    private boolean[] antValid;
+    private double[] antLengths;
+    private boolean[] antPending;
+    private SplittableRandom[] antRandoms;
+    private int[] validAnts;
+    private double[] solutionLengths;
+    private long runStartNanos;
+    private boolean stoppedEarly;
+    private volatile boolean cancelled;
+    private final List<TerminationCriterion> terminationCriteria = new ArrayList<>();
+    private volatile OptimizationListener[] listeners = new OptimizationListener[0];
 
     public ACOOptimizer(List<Usek> useky, List<Turnus> turnusy,
                        double maxBatteryCapacity, double minBatteryLevel,
                        double consumptionRate, double chargingRate) {
-        this.useky = useky;
-        this.turnusy = turnusy;
-        this.maxBatteryCapacity = maxBatteryCapacity;
-        this.minBatteryLevel = minBatteryLevel;
-        this.consumptionRate = consumptionRate;
-        this.chargingRate = chargingRate;
-        this.pheromones = new double[useky.size()][2];
+        this(ProblemInstance.compile(useky, turnusy, maxBatteryCapacity, minBatteryLevel,
+                                     consumptionRate, chargingRate));
+    }
+
+    public ACOOptimizer(ProblemInstance instance) {
+        this.instance = instance;
+        this.segmentCount = instance.getSegmentCount();
+        this.distances = instance.getDistances();
+        this.maxBatteryCapacity = instance.getMaxBatteryCapacity();
+        this.minBatteryLevel = instance.getMinBatteryLevel();
+        this.consumptionRate = instance.getConsumptionRate();
         this.bestSolutionLength = Double.MAX_VALUE;
+        this.heuristic = new double[segmentCount];
+        this.heuristicWired = new double[segmentCount];
+        this.heuristicUnwired = new double[segmentCount];
+        this.pheromoneWired = new double[segmentCount];
+        this.pheromoneUnwired = new double[segmentCount];
+        this.wiringProbability = new double[segmentCount];
+        setReduction(null);
+
+        int maxUsage = instance.getMaxSegmentUsage();
+        for (int i = 0; i < segmentCount; i++) {
+            double usageFrequency = instance.getSegmentUsage(i) / (double) maxUsage;
+            heuristic[i] = usageFrequency / distances[i];
+        }
         initializePheromones();
     }
 
+    private void updateHeuristicTable() {
+        if (heuristicBeta == BETA) {
+            return;
+        }
+        for (int i = 0; i < segmentCount; i++) {
+            heuristicWired[i] = Math.pow(heuristic[i], BETA);
+            heuristicUnwired[i] = Math.pow(1.0 / heuristic[i], BETA);
+        }
+        heuristicBeta = BETA;
+    }
+
+    private void updateDecisionTable() {
+        for (int i : freeSegments) {
+            pheromoneUnwired[i] = Math.pow(pheromones[i], ALPHA);
+            pheromoneWired[i] = Math.pow(pheromones[segmentCount + i], ALPHA);
+
+            double p1 = pheromoneWired[i] * heuristicWired[i];
+            double p0 = pheromoneUnwired[i] * heuristicUnwired[i];
+            double sum = p0 + p1;
+            wiringProbability[i] = sum == 0 ? 0.5 : p1 / sum;
+        }
+    }
+
     private void initializePheromones() {
-        pheromones = new double[useky.size()][2];
-        for (int i = 0; i < useky.size(); i++) {
-            pheromones[i][0] = TAU_0;
-            pheromones[i][1] = TAU_0;
+        pheromones = new double[2 * segmentCount];
+        Arrays.fill(pheromones, TAU_0);
+        tau0Changed = false;
+    }
+
+    private static long mixSeed(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private long streamSeed(long runSeed, int iteration, int stream) {
+        return mixSeed(runSeed + 0x9E3779B97F4A7C15L * ((long) iteration * (NUM_ANTS + 1) + stream + 1));
+    }
+
+    public Solution optimize() {
+        startRun();
+        runIterations(MAX_ITERATIONS);
+        return finishRun();
+    }
+
+    public void startRun() {
+        runSeed = mixSeed(seed + runCount++);
+        resetRunState();
+        // Trails carry over from the previous run unless TAU_0 changed or a warm start reseeds them.
+        if (tau0Changed || warmStart != null) {
+            initializePheromones();
         }
+        if (warmStart != null) {
+            applyWarmStart();
+        }
+        updateHeuristicTable();
+        updateDecisionTable();
     }
 
-    public List<Boolean> optimize() {
+    // Clears the progress of the current run and sizes its buffers for the current settings;
+    // the settings, the seed stream and the pheromone trails are left as they are.
+    private void resetRunState() {
+        if (pool != null) {
+            pool.shutdown();   // Restoring into a live optimizer must not leak the old workers
+        }
+        pool = PARALLELISM > 1 ? new ForkJoinPool(PARALLELISM) : null;
+        iteration = 0;
+        runStartNanos = System.nanoTime();
+        stoppedEarly = false;
+        cancelled = false;
         bestSolution = null;
         bestSolutionLength = Double.MAX_VALUE;
-        List<List<Boolean>> eliteSolutions = new ArrayList<>();
-        List<Double> eliteLengths = new ArrayList<>();
-       
-        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
-            List<List<Boolean>> antSolutions = new ArrayList<>();
-            List<Double> solutionLengths = new ArrayList<>();
-
+        constructedAnts = 0;
+        feasibleAnts = 0;
+        tauMax = 0;
+        pheromoneRestarts = 0;
+        lastImprovement = 0;
+        lastRestart = 0;
+        if (constructionMode == ConstructionMode.BATTERY_AWARE) {
+            builders = new BatteryAwareBuilder[NUM_ANTS];
             for (int ant = 0; ant < NUM_ANTS; ant++) {
-                List<Boolean> solution = constructSolution();
-                if (isValidSolution(solution)) {
-                    double length = calculateTotalLength(solution);
-                    antSolutions.add(solution);
-                    solutionLengths.add(length);
-                   
-                    updateEliteSolutions(solution, length, eliteSolutions, eliteLengths);
-                }
+                builders[ant] = new BatteryAwareBuilder(instance, reduction);
+            }
+        } else if (constructionMode == ConstructionMode.WINDOWED) {
+            windowedBuilders = new WindowedBuilder[NUM_ANTS];
+            for (int ant = 0; ant < NUM_ANTS; ant++) {
+                windowedBuilders[ant] = new WindowedBuilder(instance, reduction, getWindowReach());
+            }
+        }
+        eliteArchive = new EliteArchive(ELITE_SOLUTIONS, ELITE_MIN_DISTANCE);
+        if (localSearchPolicy == LocalSearchPolicy.EVERY_ANT) {
+            antEvaluators = new DeltaEvaluator[NUM_ANTS];
+            for (int ant = 0; ant < NUM_ANTS; ant++) {
+                antEvaluators[ant] = new DeltaEvaluator(instance);
             }
+        }
+
+        antSolutions = new Solution[NUM_ANTS];
+        for (int ant = 0; ant < NUM_ANTS; ant++) {
+            antSolutions[ant] = new Solution(segmentCount);
+        }
+        antValid = new boolean[NUM_ANTS];
+        antLengths = new double[NUM_ANTS];
+        antPending = new boolean[NUM_ANTS];
+        depositSolutions = new Solution[NUM_ANTS + ELITE_SOLUTIONS];
+        depositAmounts = new double[NUM_ANTS + ELITE_SOLUTIONS];
+        antRandoms = new SplittableRandom[NUM_ANTS];
+        batchEvaluator = batchEvaluation ? new BatchFeasibilityEvaluator(instance) : null;
+        validAnts = new int[NUM_ANTS];
+        solutionLengths = new double[NUM_ANTS];
+    }
 
-            if (!antSolutions.isEmpty()) {
-                int bestIndex = solutionLengths.indexOf(Collections.min(solutionLengths));
-                double length = solutionLengths.get(bestIndex);
-                if (length < bestSolutionLength) {
-                    bestSolutionLength = length;
-                    bestSolution = new ArrayList<>(antSolutions.get(bestIndex));
-                    List<Boolean> improvedSolution = localSearch(bestSolution);
-                    if (isValidSolution(improvedSolution)) {
-                        double improvedLength = calculateTotalLength(improvedSolution);
-                        if (improvedLength < bestSolutionLength) {
-                            bestSolutionLength = improvedLength;
-                            bestSolution = improvedSolution;
-                        }
-                    }
+    public void runIterations(int count) {
+        int limit = (int) Math.min(MAX_ITERATIONS, (long) iteration + count);
+        stoppedEarly |= cancelled;
+        while (iteration < limit && !stoppedEarly) {
+            runIteration();
+            iteration++;
+            if (listeners.length != 0 && iteration % REPORT_INTERVAL == 0) {
+                notifyListeners();
+            }
+            if (checkpointFile != null && iteration % CHECKPOINT_INTERVAL == 0) {
+                try {
+                    saveCheckpoint(checkpointFile);
+                } catch (IOException e) {
+                    System.err.println("Error writing checkpoint: " + e.getMessage());
                 }
             }
-           
-            evaporatePheromones();
-            for (int i = 0; i < antSolutions.size(); i++) {
-                updatePheromones(antSolutions.get(i), solutionLengths.get(i));
+            stoppedEarly = shouldTerminate();
+        }
+    }
+
+    public void saveCheckpoint(Path file) throws IOException {
+        CheckpointFile.write(file, this::writeState);
+    }
+
+    // Restores a run saved by saveCheckpoint; runIterations then continues exactly where it
+    // stopped, since every random stream is derived from the run seed and iteration. The tuned
+    // parameters and run settings come from the checkpoint. The caller must re-apply the reduction,
+    // the local search strategy with its own settings, the feasibility cache, batch evaluation,
+    // listeners, termination criteria and the checkpoint file; a different reduction or local
+    // search class is rejected.
+    public void restoreCheckpoint(Path file) throws IOException {
+        CheckpointFile.read(file, this::readState);
+    }
+
+    void writeState(DataOutputStream out) throws IOException {
+        out.writeInt(segmentCount);
+        out.writeInt(freeSegments.length);
+        out.writeUTF(localSearch.getClass().getName());
+
+        out.writeInt(NUM_ANTS);
+        out.writeInt(MAX_ITERATIONS);
+        out.writeDouble(ALPHA);
+        out.writeDouble(BETA);
+        out.writeDouble(RHO);
+        out.writeDouble(Q);
+        out.writeDouble(TAU_0);
+        out.writeDouble(P_0);
+        out.writeInt(ELITE_SOLUTIONS);
+        out.writeInt(ELITE_MIN_DISTANCE);
+        out.writeLong(seed);
+        out.writeInt(constructionMode.ordinal());
+        out.writeInt(pheromoneUpdate.ordinal());
+        out.writeInt(localSearchPolicy.ordinal());
+        out.writeDouble(P_BEST);
+        out.writeInt(STAGNATION_LIMIT);
+        out.writeInt(PARALLELISM);
+        out.writeInt(REPORT_INTERVAL);
+        out.writeDouble(WARM_START_FACTOR);
+
+        out.writeInt(runCount);
+        out.writeLong(runSeed);
+        out.writeInt(iteration);
+        out.writeInt(lastImprovement);
+        out.writeInt(lastRestart);
+        out.writeInt(pheromoneRestarts);
+        out.writeLong(constructedAnts);
+        out.writeLong(feasibleAnts);
+        out.writeDouble(tauMin);
+        out.writeDouble(tauMax);
+        out.writeLong(getElapsedNanos());
+        out.writeBoolean(stoppedEarly);
+
+        out.writeBoolean(bestSolution != null);
+        if (bestSolution != null) {
+            bestSolution.writeTo(out);
+            out.writeDouble(bestSolutionLength);
+        }
+        for (int i = 0; i < segmentCount; i++) {
+            out.writeDouble(pheromones[i]);
+            out.writeDouble(pheromones[segmentCount + i]);
+        }
+        out.writeInt(eliteArchive.size());
+        for (int i = 0; i < eliteArchive.size(); i++) {
+            eliteArchive.getSolution(i).writeTo(out);
+            out.writeDouble(eliteArchive.getLength(i));
+        }
+    }
+
+    void readState(DataInputStream in) throws IOException {
+        if (in.readInt() != segmentCount || in.readInt() != freeSegments.length) {
+            throw new IOException("checkpoint belongs to a different problem instance or reduction");
+        }
+        String localSearchClass = in.readUTF();
+        if (!localSearchClass.equals(localSearch.getClass().getName())) {
+            throw new IOException("checkpoint was written with local search " + localSearchClass
+                                  + ", set it before restoring");
+        }
+
+        NUM_ANTS = in.readInt();
+        MAX_ITERATIONS = in.readInt();
+        ALPHA = in.readDouble();
+        BETA = in.readDouble();
+        RHO = in.readDouble();
+        Q = in.readDouble();
+        TAU_0 = in.readDouble();
+        P_0 = in.readDouble();
+        ELITE_SOLUTIONS = in.readInt();
+        ELITE_MIN_DISTANCE = in.readInt();
+        seed = in.readLong();
+        constructionMode = ConstructionMode.values()[in.readInt()];
+        pheromoneUpdate = PheromoneUpdate.values()[in.readInt()];
+        localSearchPolicy = LocalSearchPolicy.values()[in.readInt()];
+        P_BEST = in.readDouble();
+        STAGNATION_LIMIT = in.readInt();
+        PARALLELISM = in.readInt();
+        REPORT_INTERVAL = in.readInt();
+        WARM_START_FACTOR = in.readDouble();
+
+        resetRunState();
+        runCount = in.readInt();
+        runSeed = in.readLong();
+        iteration = in.readInt();
+        lastImprovement = in.readInt();
+        lastRestart = in.readInt();
+        pheromoneRestarts = in.readInt();
+        constructedAnts = in.readLong();
+        feasibleAnts = in.readLong();
+        tauMin = in.readDouble();
+        tauMax = in.readDouble();
+        runStartNanos = System.nanoTime() - in.readLong();
+        stoppedEarly = in.readBoolean();
+
+        if (in.readBoolean()) {
+            bestSolution = Solution.readFrom(in);
+            bestSolutionLength = in.readDouble();
+        }
+        for (int i = 0; i < segmentCount; i++) {
+            pheromones[i] = in.readDouble();
+            pheromones[segmentCount + i] = in.readDouble();
+        }
+        tau0Changed = false;
+        int eliteCount = in.readInt();
+        for (int i = 0; i < eliteCount; i++) {
+            Solution solution = Solution.readFrom(in);
+            eliteArchive.append(solution, in.readDouble());
+        }
+        updateHeuristicTable();
+        updateDecisionTable();
+    }
+
+    private void notifyListeners() {
+        double iterationBestLength = Double.MAX_VALUE;
+        int feasibleCount = 0;
+        for (int ant = 0; ant < antValid.length; ant++) {
+            if (antValid[ant]) {
+                feasibleCount++;
+                iterationBestLength = Math.min(iterationBestLength, antLengths[ant]);
             }
+        }
+        long elapsedNanos = getElapsedNanos();
+        for (OptimizationListener listener : listeners) {
+            listener.iterationCompleted(iteration, bestSolutionLength, iterationBestLength,
+                                        feasibleCount, elapsedNanos);
+        }
+    }
+
+    public synchronized void addListener(OptimizationListener listener) {
+        OptimizationListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
 
-            for (int i = 0; i < eliteSolutions.size(); i++) {
-                updatePheromones(eliteSolutions.get(i), eliteLengths.get(i));
+    public synchronized void removeListener(OptimizationListener listener) {
+        List<OptimizationListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+        remaining.remove(listener);
+        listeners = remaining.toArray(new OptimizationListener[0]);
+    }
+
+    private boolean shouldTerminate() {
+        if (cancelled) {
+            return true;
+        }
+        for (TerminationCriterion criterion : terminationCriteria) {
+            if (criterion.isSatisfied(this)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    public boolean isFinished() {
+        return iteration >= MAX_ITERATIONS || stoppedEarly || cancelled;
+    }
+
+    public boolean isStoppedEarly() {
+        return stoppedEarly;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public void addTerminationCriterion(TerminationCriterion criterion) {
+        terminationCriteria.add(criterion);
+    }
 
+    public void clearTerminationCriteria() {
+        terminationCriteria.clear();
+    }
+
+    public Solution finishRun() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
         return bestSolution != null ? bestSolution : generateDefaultSolution();
     }
 
-    private List<Boolean> constructSolution() {
-        List<Boolean> solution = new ArrayList<>();
-        Random random = new Random();
-       
-        Map<Integer, Integer> segmentUsage = new HashMap<>();
-        for (Turnus turnus : turnusy) {
-            for (Integer usekIndex : turnus.getUskyIndices()) {
-                segmentUsage.merge(usekIndex, 1, Integer::sum);
+    private void runIteration() {
+        int validCount = 0;
+        constructAnts();
+
+        for (int ant = 0; ant < NUM_ANTS; ant++) {
+            if (antValid[ant]) {
+                double length = antLengths[ant];
+                validAnts[validCount] = ant;
+                solutionLengths[validCount] = length;
+                validCount++;
+
+                eliteArchive.offer(antSolutions[ant], length);
+            }
+        }
+        constructedAnts += NUM_ANTS;
+        feasibleAnts += validCount;
+
+        int bestIndex = -1;
+        if (validCount > 0) {
+            bestIndex = 0;
+            for (int i = 1; i < validCount; i++) {
+                if (solutionLengths[i] < solutionLengths[bestIndex]) {
+                    bestIndex = i;
+                }
+            }
+            if (localSearchPolicy == LocalSearchPolicy.ITERATION_BEST) {
+                Solution iterationBest = antSolutions[validAnts[bestIndex]];
+                solutionLengths[bestIndex] = improveSolution(iterationBest, solutionLengths[bestIndex],
+                    getEvaluator(), new SplittableRandom(streamSeed(runSeed, iteration, NUM_ANTS)));
+                antLengths[validAnts[bestIndex]] = solutionLengths[bestIndex];
+                eliteArchive.offer(iterationBest, solutionLengths[bestIndex]);
+            }
+            double length = solutionLengths[bestIndex];
+            if (length < bestSolutionLength) {
+                lastImprovement = iteration;
+                bestSolutionLength = length;
+                bestSolution = antSolutions[validAnts[bestIndex]].copy();
+                if (localSearchPolicy == LocalSearchPolicy.GLOBAL_BEST) {
+                    bestSolutionLength = improveSolution(bestSolution, bestSolutionLength, getEvaluator(),
+                        new SplittableRandom(streamSeed(runSeed, iteration, NUM_ANTS)));
+                }
             }
         }
        
-        int maxUsage = segmentUsage.values().stream()
-            .mapToInt(Integer::intValue)
-            .max()
-            .orElse(1);
+        evaporatePheromones();
+        if (pheromoneUpdate == PheromoneUpdate.MAX_MIN) {
+            if (bestSolution != null) {
+                if (lastImprovement == iteration) {
+                    updateMaxMinBounds();
+                }
+                if (bestIndex < 0 || iteration - lastRestart >= 25
+                        && (iteration - lastRestart) % globalBestFrequency(iteration - lastRestart) == 0) {
+                    updatePheromones(bestSolution, bestSolutionLength);
+                } else {
+                    updatePheromones(antSolutions[validAnts[bestIndex]], solutionLengths[bestIndex]);
+                }
+                clampPheromones();
 
-        for (int i = 0; i < useky.size(); i++) {
-            Usek currentUsek = useky.get(i);
-           
+                if (iteration - Math.max(lastImprovement, lastRestart) >= STAGNATION_LIMIT
+                        || iteration - lastRestart >= 50 && pheromoneConvergence() > 0.99) {
+                    resetPheromones(tauMax);
+                    lastRestart = iteration;
+                    pheromoneRestarts++;
+                }
+            }
+        } else {
+            int deposits = 0;
+            for (int i = 0; i < validCount; i++) {
+                depositSolutions[deposits] = antSolutions[validAnts[i]];
+                depositAmounts[deposits++] = Q / solutionLengths[i];
+            }
+            for (int i = 0; i < eliteArchive.size(); i++) {
+                depositSolutions[deposits] = eliteArchive.getSolution(i);
+                depositAmounts[deposits++] = Q / eliteArchive.getLength(i);
+            }
+            kernels.deposit(pheromones, segmentCount, depositSolutions, depositAmounts, deposits);
+        }
+        updateDecisionTable();
+    }
+
+    private void applyWarmStart() {
+        Solution start = warmStart.copy();
+        reduction.applyTo(start);
+        if (!isValidSolution(start)) {
+            System.out.println("Warm start solution is infeasible, ignoring it");
+            return;
+        }
+        bestSolution = start;
+        bestSolutionLength = calculateTotalLength(start);
+        eliteArchive.offer(start, bestSolutionLength);
+
+        if (pheromoneUpdate == PheromoneUpdate.MAX_MIN) {
+            updateMaxMinBounds();
+            double other = Math.max(tauMin, tauMax / WARM_START_FACTOR);
+            for (int i : freeSegments) {
+                pheromones[start.get(i) ? segmentCount + i : i] = tauMax;
+                pheromones[start.get(i) ? i : segmentCount + i] = other;
+            }
+        } else {
+            for (int i : freeSegments) {
+                pheromones[start.get(i) ? segmentCount + i : i] = TAU_0 * WARM_START_FACTOR;
+            }
+        }
+    }
+
+    public void acceptSolution(Solution solution, double length) {
+        eliteArchive.offer(solution, length);
+        if (length < bestSolutionLength) {
+            bestSolution = solution.copy();
+            bestSolutionLength = length;
+            lastImprovement = iteration;
+            if (pheromoneUpdate == PheromoneUpdate.MAX_MIN) {
+                updateMaxMinBounds();
+                clampPheromones();
+                updateDecisionTable();
+            }
+        }
+    }
+
+    public double[] copyPheromones() {
+        return pheromones.clone();
+    }
+
+    public void blendPheromones(double[] other, double weight) {
+        for (int i = 0; i < pheromones.length; i++) {
+            pheromones[i] = (1 - weight) * pheromones[i] + weight * other[i];
+        }
+        if (pheromoneUpdate == PheromoneUpdate.MAX_MIN && tauMax > 0) {
+            clampPheromones();
+        }
+        updateDecisionTable();
+    }
+
+    private void constructAnts() {
+        forEachAnt(this::constructAnt);
+        if (batchEvaluator != null) {
+            batchEvaluator.evaluate(antSolutions, antPending, antValid);
+            forEachAnt(ant -> {
+                if (antPending[ant]) {
+                    finishAnt(ant);
+                }
+            });
+        }
+    }
+
+    private void forEachAnt(IntConsumer action) {
+        if (pool == null) {
+            for (int ant = 0; ant < NUM_ANTS; ant++) {
+                action.accept(ant);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, NUM_ANTS).parallel().forEach(action)).join();
+        }
+    }
+
+    private void constructAnt(int ant) {
+        Solution solution = antSolutions[ant];
+        SplittableRandom random = new SplittableRandom(streamSeed(runSeed, iteration, ant));
+        antRandoms[ant] = random;
+        antPending[ant] = false;
+        boolean buildable = true;
+        if (constructionMode == ConstructionMode.BATTERY_AWARE) {
+            buildable = builders[ant].build(solution, wiringProbability, P_0, random);
+        } else if (constructionMode == ConstructionMode.WINDOWED) {
+            buildable = windowedBuilders[ant].build(solution, wiringProbability, P_0, random);
+        } else {
+            constructSolution(solution, random);
+        }
+
+        Double cached = buildable && feasibilityCache != null ? feasibilityCache.lookup(solution) : null;
+        if (!buildable) {
+            antValid[ant] = false;
+            antLengths[ant] = Double.MAX_VALUE;
+        } else if (cached != null) {
+            antValid[ant] = !Double.isNaN(cached);
+            antLengths[ant] = antValid[ant] ? cached : Double.MAX_VALUE;
+        } else if (batchEvaluator != null) {
+            antPending[ant] = true;
+            return;
+        } else {
+            antValid[ant] = isValidSolution(solution);
+            finishAnt(ant);
+            return;
+        }
+        improveAnt(ant);
+    }
+
+    private void finishAnt(int ant) {
+        Solution solution = antSolutions[ant];
+        antLengths[ant] = antValid[ant] ? calculateTotalLength(solution) : Double.MAX_VALUE;
+        if (feasibilityCache != null) {
+            feasibilityCache.store(solution, antValid[ant], antLengths[ant]);
+        }
+        improveAnt(ant);
+    }
+
+    private void improveAnt(int ant) {
+        if (antValid[ant] && localSearchPolicy == LocalSearchPolicy.EVERY_ANT) {
+            antLengths[ant] = improveSolution(antSolutions[ant], antLengths[ant], antEvaluators[ant], antRandoms[ant]);
+        }
+    }
+
+    private void constructSolution(Solution solution, SplittableRandom random) {
+        solution.clear();
+
+        for (int i : freeSegments) {
             if (random.nextDouble() < P_0) {
-                solution.add(random.nextBoolean());
+                solution.set(i, random.nextBoolean());
             } else {
-                double usageFrequency = segmentUsage.getOrDefault(i, 0) / (double) maxUsage;
-                double heuristicValue = usageFrequency / currentUsek.getDistance();
-               
-                double p1 = Math.pow(pheromones[i][1], ALPHA) * Math.pow(heuristicValue, BETA);
-                double p0 = Math.pow(pheromones[i][0], ALPHA) * Math.pow(1.0/heuristicValue, BETA);
-                double sum = p0 + p1;
-               
-                if (sum == 0) {
-                    solution.add(random.nextBoolean());
-                } else {
-                    double probability = p1 / sum;
-                    solution.add(random.nextDouble() < probability);
-                }
+                solution.set(i, random.nextDouble() < wiringProbability[i]);
             }
         }
+        reduction.applyTo(solution);
 
         ensureMinimumConnectivity(solution);
-        return solution;
     }
 
-    private void ensureMinimumConnectivity(List<Boolean> solution) {
-        for (Turnus turnus : turnusy) {
+    private void ensureMinimumConnectivity(Solution solution) {
+        double maxDistanceWithoutCharging = (maxBatteryCapacity - minBatteryLevel) / consumptionRate;
+        for (int t = 0; t < instance.getTurnusCount(); t++) {
             double currentBattery = maxBatteryCapacity;
             double distanceWithoutCharging = 0;
-            List<Integer> uskyIndices = turnus.getUskyIndices();
+            int[] sequence = instance.getTurnusSegments(t);
            
-            for (int i = 0; i < uskyIndices.size(); i++) {
-                int usekIndex = uskyIndices.get(i);
-                Usek usek = useky.get(usekIndex);
-                double distance = usek.getDistance();
+            for (int i = 0; i < sequence.length; i++) {
+                int usekIndex = sequence[i];
+                double distance = distances[usekIndex];
                
                 if (currentBattery - (distance * consumptionRate) < minBatteryLevel ||
-                    distanceWithoutCharging + distance > (maxBatteryCapacity - minBatteryLevel) / consumptionRate) {
+                    distanceWithoutCharging + distance > maxDistanceWithoutCharging) {
                     solution.set(usekIndex, true);
                     currentBattery = maxBatteryCapacity;
                     distanceWithoutCharging = 0;
@@ -165,146 +719,149 @@ public class ACOOptimizer {
         }    
     }
 
-    private boolean isValidSolution(List<Boolean> solution) {
-         for (Turnus turnus : turnusy) {
-            if (!turnus.isValidBatteryState(useky, solution, maxBatteryCapacity,
-                                          consumptionRate, chargingRate)) {
-                return false;
-            }
-        }
-        return true;
+    private boolean isValidSolution(Solution solution) {
+        return instance.isValid(solution);
     }
 
-    private double calculateTotalLength(List<Boolean> solution) {
-        double totalLength = 0;
-        for (int i = 0; i < solution.size(); i++) {
-            if (solution.get(i)) {
-                totalLength += useky.get(i).getDistance();
-            }
-        }
-        return totalLength;
+    private double calculateTotalLength(Solution solution) {
+        return kernels.maskedLength(distances, solution);
     }
 
     private void evaporatePheromones() {
-        for (int i = 0; i < useky.size(); i++) {
-            pheromones[i][0] *= (1.0 - RHO);
-            pheromones[i][1] *= (1.0 - RHO);
-        }
+        kernels.scale(pheromones, 0, pheromones.length, 1.0 - RHO);
     }
 
-    private void updatePheromones(List<Boolean> solution, double solutionLength) {
-        double deposit = Q / solutionLength;
-        for (int i = 0; i < solution.size(); i++) {
-            int index = solution.get(i) ? 1 : 0;
-            pheromones[i][index] += deposit;
+    private void updateMaxMinBounds() {
+        boolean firstBound = tauMax == 0;
+        tauMax = Q / (RHO * bestSolutionLength);
+        double pDec = Math.pow(P_BEST, 1.0 / Math.max(1, freeSegments.length));
+        tauMin = Math.min(tauMax, tauMax * (1 - pDec) / pDec);
+        if (firstBound) {
+            resetPheromones(tauMax);
         }
     }
 
-    private void updateEliteSolutions(List<Boolean> solution, double length,
-                                    List<List<Boolean>> eliteSolutions,
-                                    List<Double> eliteLengths) {
-        if (eliteSolutions.size() < ELITE_SOLUTIONS) {
-            eliteSolutions.add(new ArrayList<>(solution));
-            eliteLengths.add(length);
-        } else if (length < Collections.max(eliteLengths)) {
-            int worstIndex = eliteLengths.indexOf(Collections.max(eliteLengths));
-            eliteSolutions.set(worstIndex, new ArrayList<>(solution));
-            eliteLengths.set(worstIndex, length);
+    private int globalBestFrequency(int iterationsSinceRestart) {
+        if (iterationsSinceRestart < 75) return 5;
+        if (iterationsSinceRestart < 125) return 3;
+        if (iterationsSinceRestart < 250) return 2;
+        return 1;
+    }
+
+    private void resetPheromones(double value) {
+        Arrays.fill(pheromones, value);
+    }
+
+    private void clampPheromones() {
+        for (int i : freeSegments) {
+            pheromones[i] = Math.max(tauMin, Math.min(tauMax, pheromones[i]));
+            pheromones[segmentCount + i] = Math.max(tauMin, Math.min(tauMax, pheromones[segmentCount + i]));
         }
     }
 
-    private List<Boolean> generateDefaultSolution() {
-        List<Boolean> solution = new ArrayList<>();
-        for (int i = 0; i < useky.size(); i++) {
-            solution.add(true);
+    private double pheromoneConvergence() {
+        int settled = 0;
+        for (int i : freeSegments) {
+            if (Math.min(pheromones[i], pheromones[segmentCount + i]) <= tauMin) {
+                settled++;
+            }
         }
+        return freeSegments.length > 0 ? settled / (double) freeSegments.length : 1.0;
+    }
+
+    private void updatePheromones(Solution solution, double solutionLength) {
+        depositSolutions[0] = solution;
+        depositAmounts[0] = Q / solutionLength;
+        kernels.deposit(pheromones, segmentCount, depositSolutions, depositAmounts, 1);
+    }
+
+    private Solution generateDefaultSolution() {
+        Solution solution = Solution.allWired(segmentCount);
+        reduction.applyTo(solution);
         return solution;
     }
 
-    private List<Boolean> localSearch(List<Boolean> solution) {
-        List<Boolean> bestSolution = new ArrayList<>(solution);
-        double bestLength = calculateTotalLength(solution);
-        int maxRadius = 5;  
-        int maxIterationsWithoutImprovement = 100;  
-        int iterationsWithoutImprovement = 0;
-        Random random = new Random();
-        double minImprovement = 0.01; 
-        
-        while (iterationsWithoutImprovement < maxIterationsWithoutImprovement) {
-            boolean improved = false;
-            
-            for (int i = 0; i < useky.size() - maxRadius; i += maxRadius) {
-                List<Boolean> neighbor = new ArrayList<>(bestSolution);
-                int removedCount = 0;
-                
-                for (int r = 0; r < maxRadius; r++) {
-                    int idx = (i + r) % useky.size();
-                    if (neighbor.get(idx) && random.nextDouble() < 0.5) {
-                        neighbor.set(idx, false);
-                        removedCount++;
-                    }
-                }
-                
-                if (removedCount > 0 && isValidSolution(neighbor)) {
-                    double length = calculateTotalLength(neighbor);
-                    if (length < bestLength * (1 - minImprovement)) {
-                        bestSolution = new ArrayList<>(neighbor);
-                        bestLength = length;
-                        improved = true;
-                    }
-                }
-            }
-            
-            for (Turnus turnus : turnusy) {
-                double batteryLevel = maxBatteryCapacity;
-                List<Integer> criticalPoints = new ArrayList<>();
-                
-                for (Integer usekIndex : turnus.getUskyIndices()) {
-                    double distance = useky.get(usekIndex).getDistance();
-                    batteryLevel -= distance * consumptionRate;
-                    
-                    if (batteryLevel < maxBatteryCapacity * 0.3) { 
-                        criticalPoints.add(usekIndex);
-                    }
-                    
-                    if (bestSolution.get(usekIndex)) {
-                        batteryLevel = maxBatteryCapacity;
-                    }
-                }
-                
-                for (Integer point : criticalPoints) {
-                    List<Boolean> neighbor = new ArrayList<>(bestSolution);
-                    neighbor.set(point, true);
-                    
-                    if (isValidSolution(neighbor)) {
-                        double length = calculateTotalLength(neighbor);
-                        if (length < bestLength) {
-                            bestSolution = neighbor;
-                            bestLength = length;
-                            improved = true;
-                        }
-                    }
-                }
-            }
-            
-            if (improved) {
-                iterationsWithoutImprovement = 0;
-            } else {
-                iterationsWithoutImprovement++;
-            }
+    private double improveSolution(Solution solution, double length, DeltaEvaluator evaluator,
+                                   SplittableRandom random) {
+        evaluator.loadValid(solution, length);
+        if (localSearch.improve(evaluator, random) && evaluator.isValid()) {
+            solution.copyFrom(evaluator.getSolution());
+            return calculateTotalLength(solution);
+        }
+        return length;
+    }
+
+    public int[][] getWindowReach() {
+        if (windowReach == null) {
+            windowReach = WindowedBuilder.computeWindowReach(instance);
+        }
+        return windowReach;
+    }
+
+    private DeltaEvaluator getEvaluator() {
+        if (evaluator == null) {
+            evaluator = new DeltaEvaluator(instance);
         }
-        
-        return isValidSolution(bestSolution) ? bestSolution : solution;
+        return evaluator;
+    }
+
+    // Every setting that shapes a run besides the eight tuned parameters and the seed, for keying
+    // stored results; batch evaluation and the feasibility cache do not change results and are left out.
+    public String describeSettings() {
+        return "v" + ALGORITHM_VERSION + "|" + constructionMode + "|" + pheromoneUpdate + "|"
+               + localSearch.getClass().getName() + "|" + localSearchPolicy + "|" + ELITE_SOLUTIONS + "|"
+               + ELITE_MIN_DISTANCE + "|" + P_BEST + "|" + STAGNATION_LIMIT + "|" + WARM_START_FACTOR + "|"
+               + reduction.getFreeCount() + "|" + (warmStart != null ? warmStart.hashCode() : 0);
     }
 
+    public ProblemInstance getInstance() { return instance; }
+
+    // Restricts the search to the free segments of the reduction; null searches every segment.
+    public void setReduction(ProblemReduction reduction) {
+        this.reduction = reduction != null ? reduction : ProblemReduction.none(instance);
+        this.freeSegments = this.reduction.getFreeSegments();
+    }
+
+    public void setPreprocessing(boolean enabled) {
+        setReduction(enabled ? ProblemReduction.analyze(instance) : null);
+    }
+
+    public ProblemReduction getReduction() { return reduction; }
+
     public void setNumAnts(int value) { this.NUM_ANTS = value; }
     public void setMaxIterations(int value) { this.MAX_ITERATIONS = value; }
     public void setAlpha(double value) { this.ALPHA = value; }
     public void setBeta(double value) { this.BETA = value; }
     public void setRho(double value) { this.RHO = value; }
     public void setQ(double value) { this.Q = value; }
-    public void setTau0(double value) { this.TAU_0 = value; }
+    // Takes effect when the next run starts; restarts otherwise keep the trails they built up.
+    public void setTau0(double value) {
+        tau0Changed |= value != TAU_0;
+        this.TAU_0 = value;
+    }
     public void setP0(double value) { this.P_0 = value; }
+    public void setParallelism(int value) { this.PARALLELISM = Math.max(1, value); }
+    public void setSeed(long value) { this.seed = value; this.runCount = 0; }
+    public void setConstructionMode(ConstructionMode mode) { this.constructionMode = mode; }
+    public void setPheromoneUpdate(PheromoneUpdate rule) { this.pheromoneUpdate = rule; }
+    public void setLocalSearch(LocalSearch localSearch) { this.localSearch = localSearch; }
+    public void setLocalSearchPolicy(LocalSearchPolicy policy) { this.localSearchPolicy = policy; }
+    public void setPBest(double value) { this.P_BEST = value; }
+    public void setStagnationLimit(int value) { this.STAGNATION_LIMIT = value; }
+    public void setEliteSolutions(int value) { this.ELITE_SOLUTIONS = Math.max(1, value); }
+    public void setEliteMinDistance(int value) { this.ELITE_MIN_DISTANCE = Math.max(0, value); }
+    public void setFeasibilityCache(FeasibilityCache cache) { this.feasibilityCache = cache; }
+    public void setFeasibilityCacheSize(int entries) {
+        this.feasibilityCache = entries > 0 ? new FeasibilityCache(entries) : null;
+    }
+    public void setBatchEvaluation(boolean enabled) { this.batchEvaluation = enabled; }
+    public void setReportInterval(int value) { this.REPORT_INTERVAL = Math.max(1, value); }
+    public void setWarmStart(Solution solution) { this.warmStart = solution != null ? solution.copy() : null; }
+    public void setCheckpoint(Path file, int interval) {
+        this.checkpointFile = file;
+        this.CHECKPOINT_INTERVAL = Math.max(1, interval);
+    }
+    public void setWarmStartFactor(double value) { this.WARM_START_FACTOR = Math.max(1.0, value); }
 
     public int getNumAnts() { return NUM_ANTS; }
     public int getMaxIterations() { return MAX_ITERATIONS; }
@@ -314,4 +871,33 @@ public class ACOOptimizer {
     public double getQ() { return Q; }
     public double getTau0() { return TAU_0; }
     public double getP0() { return P_0; }
+    public int getParallelism() { return PARALLELISM; }
+    public long getSeed() { return seed; }
+    public ConstructionMode getConstructionMode() { return constructionMode; }
+    public PheromoneUpdate getPheromoneUpdate() { return pheromoneUpdate; }
+    public LocalSearch getLocalSearch() { return localSearch; }
+    public LocalSearchPolicy getLocalSearchPolicy() { return localSearchPolicy; }
+    public double getPBest() { return P_BEST; }
+    public int getStagnationLimit() { return STAGNATION_LIMIT; }
+    public int getReportInterval() { return REPORT_INTERVAL; }
+    public boolean isBatchEvaluation() { return batchEvaluation; }
+    public Solution getWarmStart() { return warmStart; }
+    public double getWarmStartFactor() { return WARM_START_FACTOR; }
+    public Path getCheckpointFile() { return checkpointFile; }
+    public int getCheckpointInterval() { return CHECKPOINT_INTERVAL; }
+    public int getEliteSolutions() { return ELITE_SOLUTIONS; }
+    public int getEliteMinDistance() { return ELITE_MIN_DISTANCE; }
+    public EliteArchive getEliteArchive() { return eliteArchive; }
+    public FeasibilityCache getFeasibilityCache() { return feasibilityCache; }
+    public int getPheromoneRestarts() { return pheromoneRestarts; }
+
+    public Solution getBestSolution() { return bestSolution; }
+    public double getBestSolutionLength() { return bestSolutionLength; }
+    public int getIteration() { return iteration; }
+    public int getIterationsSinceImprovement() { return iteration - lastImprovement; }
+    public long getElapsedNanos() { return System.nanoTime() - runStartNanos; }
+
+    public double getFeasibilityRate() {
+        return constructedAnts > 0 ? feasibleAnts / (double) constructedAnts : 0.0;
+    }
 }
\ No newline at end of file
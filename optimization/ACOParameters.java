@@ -0,0 +1,60 @@
+package optimization;
+
+public class ACOParameters {
+    private int numAnts = 40;
+    private int maxIterations = 1500;
+    private double alpha = 0.5;
+    private double beta = 10.0;
+    private double rho = 0.5;
+    private double q = 100.0;
+    private double tau0 = 0.01;
+    private double p0 = 0.1;
+
+    public ACOParameters copy() {
+        ACOParameters copy = new ACOParameters();
+        copy.numAnts = numAnts;
+        copy.maxIterations = maxIterations;
+        copy.alpha = alpha;
+        copy.beta = beta;
+        copy.rho = rho;
+        copy.q = q;
+        copy.tau0 = tau0;
+        copy.p0 = p0;
+        return copy;
+    }
+
+    public void applyTo(ACOOptimizer optimizer) {
+        optimizer.setNumAnts(numAnts);
+        optimizer.setMaxIterations(maxIterations);
+        optimizer.setAlpha(alpha);
+        optimizer.setBeta(beta);
+        optimizer.setRho(rho);
+        optimizer.setQ(q);
+        optimizer.setTau0(tau0);
+        optimizer.setP0(p0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ALPHA=%.4f;BETA=%.4f;RHO=%.4f;Q=%.2f;TAU_0=%.4f;P_0=%.4f;NUM_ANTS=%d;MAX_ITERATIONS=%d",
+                             alpha, beta, rho, q, tau0, p0, numAnts, maxIterations);
+    }
+
+    public void setNumAnts(int value) { this.numAnts = value; }
+    public void setMaxIterations(int value) { this.maxIterations = value; }
+    public void setAlpha(double value) { this.alpha = value; }
+    public void setBeta(double value) { this.beta = value; }
+    public void setRho(double value) { this.rho = value; }
+    public void setQ(double value) { this.q = value; }
+    public void setTau0(double value) { this.tau0 = value; }
+    public void setP0(double value) { this.p0 = value; }
+
+    public int getNumAnts() { return numAnts; }
+    public int getMaxIterations() { return maxIterations; }
+    public double getAlpha() { return alpha; }
+    public double getBeta() { return beta; }
+    public double getRho() { return rho; }
+    public double getQ() { return q; }
+    public double getTau0() { return tau0; }
+    public double getP0() { return p0; }
+}
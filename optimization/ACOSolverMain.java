@@ -1,10 +1,17 @@
 package optimization;
 
+import model.ProblemDecomposition;
+import model.ProblemInstance;
+import model.ProblemReduction;
+import model.Solution;
 import model.Turnus;
 import model.Usek;
 import util.CSVParser;
 import java.util.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
@@ -12,7 +19,22 @@ import java.time.format.DateTimeFormatter;
 public class ACOSolverMain {
     private static String RESULTS_FILE;
     private static String RUNS_LOG_FILE;
+    private static String CHECKPOINT_FILE;
+    private static final int CHECKPOINT_EPOCHS = 4;
     private static final long MAX_RUNTIME_HOURS = 12;
+    private static final int TOP_SOLUTIONS = 10;
+    private static final int FEASIBILITY_CACHE_ENTRIES = 200_000;
+    private static final double TARGET_GAP = 0.0;   // Stop below this optimality gap (0 = off)
+    private static String SEED_SOLUTION_FILE;
+    private static final WarmStart WARM_START = WarmStart.TURNUS_OPTIMA;
+    private static final int COLONIES = Runtime.getRuntime().availableProcessors();
+    private static final int COMPONENT_CHECKPOINT_INTERVAL = 200;   // Iterations between component checkpoints
+    private static final ACOParameters PARAMETERS = colonyParameters();
+
+    private enum WarmStart {
+        TURNUS_OPTIMA,   // Union of the per-turnus DP optima, pruned
+        GREEDY           // Longest segment before each battery shortfall, pruned
+    }
 
     private enum Configuration {
         J(40.0, 10.0, 0.0013, 0.0026, "J", 9835.0),
@@ -42,7 +64,9 @@ public class ACOSolverMain {
         try {
             for (Configuration config : Configuration.values()) {
                 RESULTS_FILE = String.format("D:\\uniza\\bakalarka_1\\final_files\\datasets_B\\B2_%s_results.csv", config.prefix);
+                SEED_SOLUTION_FILE = RESULTS_FILE;
                 RUNS_LOG_FILE = String.format("D:\\uniza\\bakalarka_1\\final_files\\datasets_B\\B2_%s_all_runs.csv", config.prefix);
+                CHECKPOINT_FILE = String.format("D:\\uniza\\bakalarka_1\\final_files\\datasets_B\\B2_%s_checkpoint.bin", config.prefix);
 
                 System.out.printf("\n\nStarting optimization for configuration %s\n", config.prefix);
                 System.out.printf("Target value: %.2f meters\n", config.targetValue);
@@ -67,38 +91,101 @@ public class ACOSolverMain {
             List<Usek> useky = CSVParser.parseUseky(usekyPath);
             List<Turnus> turnusy = CSVParser.parseTurnusy(turnusyPath);
 
-            ACOOptimizer optimizer = new ACOOptimizer(useky, turnusy, 
+            ProblemInstance instance = ProblemInstance.compile(useky, turnusy, 
                 config.batteryCapacity, config.minBatteryCapacity, 
                 config.chargingRate, config.consumptionRate);
 
-            optimizer.setNumAnts(100);
-            optimizer.setMaxIterations(3000);
-            optimizer.setAlpha(0.1);
-            optimizer.setBeta(2.0);
-            optimizer.setRho(0.75);
-            optimizer.setQ(100.0);
-            optimizer.setTau0(0.75);
-            optimizer.setP0(0.1);
+            ProblemReduction reduction = ProblemReduction.analyze(instance);
+            System.out.printf("Preprocessing: %d segments, %d unused, %d forced (%.2f meters), %d free\n",
+                            reduction.getSegmentCount(), reduction.getUnusedCount(), reduction.getForcedCount(),
+                            reduction.getForcedLength(), reduction.getFreeCount());
+            ProblemDecomposition decomposition = ProblemDecomposition.decompose(instance);
+            System.out.printf("Independent components: %d (largest %d segments)\n",
+                            decomposition.getComponentCount(),
+                            decomposition.getComponentCount() > 0 ? decomposition.getComponent(0).getSegmentCount() : 0);
+            int[][] windowReach = WindowedBuilder.computeWindowReach(instance);
+            System.out.printf("Battery windows: %d across %d turnusy\n",
+                            WindowedBuilder.countWindows(instance, windowReach), instance.getTurnusCount());
+            if (!reduction.isFeasible()) {
+                System.out.println("Warning: instance is infeasible even with every segment wired");
+            }
+
+            LowerBoundCalculator boundCalculator = new LowerBoundCalculator(instance);
+            double lowerBound = boundCalculator.compute();
+            if (Double.isInfinite(lowerBound)) {
+                System.out.printf("Configuration %s is infeasible: some turnus runs out of battery even with every segment wired\n",
+                                config.prefix);
+                return;
+            }
+            System.out.printf("Lower bound: %.2f meters (target gap %.2f%%)\n",
+                            lowerBound, LowerBoundCalculator.gap(config.targetValue, lowerBound) * 100);
+
+            Solution warmStart = loadWarmStart(useky, instance, boundCalculator);
 
-            List<Boolean> bestSolution = null;
+            Solution bestSolution = null;
             double bestLength = Double.MAX_VALUE;
+            EliteArchive topSolutions = new EliteArchive(TOP_SOLUTIONS);
             long startTime = System.currentTimeMillis();
             LocalDateTime endDateTime = LocalDateTime.now().plusHours(MAX_RUNTIME_HOURS);
             int iterationCount = 0;
 
-            initializeResultsFile(optimizer);
+            initializeResultsFile(PARAMETERS);
 
             System.out.println("\nStarting optimization...");
             System.out.println("Will run until target achieved or " + MAX_RUNTIME_HOURS + " hours elapsed");
 
+            long deadline = System.currentTimeMillis() + MAX_RUNTIME_HOURS * 3_600_000L;
+
+            // Components share no segment, so each is solved on its own (small ones exactly, once) and
+            // the per-component optima are merged; target and gap are checked on the merged result.
+            // Colonies are only built for an instance that does not split.
+            MultiColonyOptimizer colonies = null;
+            DecomposedOptimizer decomposed = null;
+            if (decomposition.getComponentCount() > 1) {
+                decomposed = new DecomposedOptimizer(instance, decomposition, component -> {
+                    configureColony(component);
+                    component.setPreprocessing(true);
+                    component.addTerminationCriterion(TerminationCriterion.deadline(deadline));
+                });
+                decomposed.setWarmStart(warmStart);
+                decomposed.setCheckpoint(Paths.get(CHECKPOINT_FILE), COMPONENT_CHECKPOINT_INTERVAL);
+                System.out.printf("Solving %d components separately\n", decomposition.getComponentCount());
+            } else {
+                colonies = new MultiColonyOptimizer(instance, COLONIES);
+                for (int i = 0; i < colonies.getColonyCount(); i++) {
+                    ACOOptimizer colony = colonies.getColony(i);
+                    configureColony(colony);
+                    colony.setReduction(reduction);
+                    colony.setWarmStart(warmStart);
+                    int colonyNumber = i + 1;
+                    colony.setReportInterval(500);
+                    colony.addListener((iteration, colonyBest, iterationBest, feasibleAnts, elapsedNanos) ->
+                        System.out.printf("Colony %d, iteration %d: best %.2f meters (gap %.2f%%), %d feasible ants, %.1f s\n",
+                                          colonyNumber, iteration, colonyBest,
+                                          LowerBoundCalculator.gap(colonyBest, lowerBound) * 100,
+                                          feasibleAnts, elapsedNanos / 1e9));
+                    colony.addTerminationCriterion(TerminationCriterion.deadline(deadline));
+                    colony.addTerminationCriterion(TerminationCriterion.targetLength(config.targetValue));
+                    if (TARGET_GAP > 0) {
+                        colony.addTerminationCriterion(TerminationCriterion.optimalityGap(lowerBound, TARGET_GAP));
+                    }
+                }
+            }
+
             while (LocalDateTime.now().isBefore(endDateTime)) {
                 iterationCount++;
                 long iterationStartTime = System.currentTimeMillis();
-                List<Boolean> solution = optimizer.optimize();
+                Solution solution;
+                if (decomposed != null) {
+                    solution = runComponents(decomposed, iterationCount == 1);
+                } else {
+                    solution = runColonies(colonies, iterationCount == 1);
+                }
 
-                if (solution != null && isValidSolution(solution, useky, turnusy)) {
+                if (solution != null && instance.isValid(solution) && isValidSolution(solution, useky, turnusy)) {
                     double length = calculateTotalLength(solution, useky);
                     double iterationTime = (System.currentTimeMillis() - iterationStartTime) / 1000.0;
+                    topSolutions.offer(solution, length);
 
                     try {
                         FileWriter runsfw = new FileWriter(RUNS_LOG_FILE, true);
@@ -113,12 +200,21 @@ public class ACOSolverMain {
 
                     if (length < bestLength) {
                         bestLength = length;
-                        bestSolution = new ArrayList<>(solution);
+                        bestSolution = solution.copy();
 
-                        logResult(iterationCount, bestLength, solution, useky, iterationTime, optimizer);
+                        logResult(iterationCount, bestLength, solution, useky, iterationTime, PARAMETERS);
 
                         System.out.printf("\nNew best solution found (iteration %d):\n", iterationCount);
                         System.out.printf("Length: %.2f meters\n", bestLength);
+                        if (decomposed != null) {
+                            System.out.printf("Components: %d (%d solved exactly)\n",
+                                            decomposition.getComponentCount(), decomposed.getExactComponents());
+                        } else if (colonies.getBestColony() >= 0) {
+                            System.out.printf("Feasible ants: %.1f%% (colony %d of %d)\n", 
+                                            colonies.getColony(colonies.getBestColony()).getFeasibilityRate() * 100,
+                                            colonies.getBestColony() + 1, colonies.getColonyCount());
+                        }
+                        System.out.printf("Optimality gap: %.2f%%\n", LowerBoundCalculator.gap(bestLength, lowerBound) * 100);
                         System.out.printf("Time elapsed: %.2f seconds\n", 
                                         (System.currentTimeMillis() - startTime) / 1000.0);
 
@@ -126,6 +222,10 @@ public class ACOSolverMain {
                             System.out.println("\nTarget value achieved!");
                             break;
                         }
+                        if (TARGET_GAP > 0 && LowerBoundCalculator.gap(length, lowerBound) <= TARGET_GAP) {
+                            System.out.println("\nTarget optimality gap achieved!");
+                            break;
+                        }
                     }
                 }
 
@@ -135,11 +235,35 @@ public class ACOSolverMain {
                 }
             }
 
+            Files.deleteIfExists(Paths.get(CHECKPOINT_FILE));
+            if (decomposed != null) {
+                decomposed.deleteCheckpoints();
+            }
+
             long totalTime = System.currentTimeMillis() - startTime;
             System.out.println("\n\nOptimization complete!");
             System.out.printf("Total runtime: %.2f seconds\n", totalTime / 1000.0);
             System.out.printf("Best solution length: %.2f meters\n", bestLength);
+            System.out.printf("Lower bound: %.2f meters, gap %.2f%%\n",
+                            lowerBound, LowerBoundCalculator.gap(bestLength, lowerBound) * 100);
             System.out.printf("Total iterations: %d\n", iterationCount);
+            System.out.printf("Distinct top solutions kept: %d (worst of them %.2f meters)\n",
+                            topSolutions.size(), topSolutions.getWorstLength());
+            if (decomposed != null) {
+                for (int c = 0; c < decomposition.getComponentCount(); c++) {
+                    ACOOptimizer component = decomposed.getComponentOptimizer(c);
+                    System.out.printf("Component %d (%d segments): %s\n", c + 1,
+                                    decomposition.getComponent(c).getSegmentCount(),
+                                    component != null ? String.format("feasible ants %.1f%%, %s",
+                                                                      component.getFeasibilityRate() * 100,
+                                                                      component.getFeasibilityCache())
+                                                      : "solved exactly");
+                }
+            } else {
+                for (int i = 0; i < colonies.getColonyCount(); i++) {
+                    System.out.printf("Colony %d: %s\n", i + 1, colonies.getColony(i).getFeasibilityCache());
+                }
+            }
 
         } catch (Exception e) {
             System.err.printf("Error in configuration %s: %s\n", config.prefix, e.getMessage());
@@ -147,7 +271,72 @@ public class ACOSolverMain {
         }
     }
 
-    private static void initializeResultsFile(ACOOptimizer optimizer) throws IOException {
+    private static Solution runColonies(MultiColonyOptimizer colonies, boolean firstRun) {
+        Path checkpoint = Paths.get(CHECKPOINT_FILE);
+        colonies.setCheckpoint(checkpoint, CHECKPOINT_EPOCHS);
+        if (firstRun && Files.exists(checkpoint)) {
+            try {
+                System.out.println("Resuming from checkpoint " + checkpoint);
+                return colonies.resume(checkpoint);
+            } catch (IOException e) {
+                System.err.println("Error reading checkpoint, starting over: " + e.getMessage());
+            }
+        }
+        return colonies.optimize();
+    }
+
+    private static Solution runComponents(DecomposedOptimizer decomposed, boolean firstRun) {
+        decomposed.setSeed(System.nanoTime());
+        return firstRun ? decomposed.resume() : decomposed.optimize();
+    }
+
+    private static Solution loadWarmStart(List<Usek> useky, ProblemInstance instance,
+                                          LowerBoundCalculator boundCalculator) {
+        Solution warmStart;
+        if (WARM_START == WarmStart.GREEDY) {
+            warmStart = InitialSolutionBuilder.greedy(instance);
+            System.out.printf("Warm start from greedy wiring: %.2f meters\n", instance.length(warmStart));
+        } else {
+            warmStart = InitialSolutionBuilder.fromTurnusOptima(instance, boundCalculator);
+            System.out.printf("Warm start from per-turnus optima: %.2f meters\n", instance.length(warmStart));
+        }
+
+        if (new File(SEED_SOLUTION_FILE).exists()) {
+            try {
+                Solution saved = CSVParser.parseSolution(SEED_SOLUTION_FILE, useky);
+                if (instance.isValid(saved) && instance.length(saved) < instance.length(warmStart)) {
+                    warmStart = saved;
+                    System.out.printf("Warm start from %s: %.2f meters\n", SEED_SOLUTION_FILE, instance.length(saved));
+                }
+            } catch (Exception e) {
+                System.err.println("Error reading seed solution: " + e.getMessage());
+            }
+        }
+        return warmStart;
+    }
+
+    private static ACOParameters colonyParameters() {
+        ACOParameters parameters = new ACOParameters();
+        parameters.setNumAnts(100);
+        parameters.setMaxIterations(3000);
+        parameters.setAlpha(0.1);
+        parameters.setBeta(2.0);
+        parameters.setRho(0.75);
+        parameters.setQ(100.0);
+        parameters.setTau0(0.75);
+        parameters.setP0(0.1);
+        return parameters;
+    }
+
+    private static void configureColony(ACOOptimizer optimizer) {
+        PARAMETERS.applyTo(optimizer);
+        optimizer.setParallelism(Math.max(1, Runtime.getRuntime().availableProcessors() / COLONIES));
+        optimizer.setConstructionMode(ACOOptimizer.ConstructionMode.WINDOWED);
+        optimizer.setPheromoneUpdate(ACOOptimizer.PheromoneUpdate.MAX_MIN);
+        optimizer.setFeasibilityCacheSize(FEASIBILITY_CACHE_ENTRIES);
+    }
+
+    private static void initializeResultsFile(ACOParameters parameters) throws IOException {
         File detailsFile = new File(RESULTS_FILE);
         boolean isNewDetails = !detailsFile.exists();
         FileWriter fw = new FileWriter(detailsFile, true);
@@ -168,9 +357,9 @@ public class ACOSolverMain {
 
         if (isNewRuns) {
             runsfw.write("Initial Parameters:\n");
-            runsfw.write(String.format("NUM_ANTS=%d; MAX_ITERATIONS=%d\n", optimizer.getNumAnts(), optimizer.getMaxIterations()));
-            runsfw.write(String.format("ALPHA=%.2f; BETA=%.2f; RHO=%.2f\n", optimizer.getAlpha(), optimizer.getBeta(), optimizer.getRho()));
-            runsfw.write(String.format("Q=%.2f; TAU_0=%.4f; P_0=%.4f\n\n", optimizer.getQ(), optimizer.getTau0(), optimizer.getP0()));
+            runsfw.write(String.format("NUM_ANTS=%d; MAX_ITERATIONS=%d\n", parameters.getNumAnts(), parameters.getMaxIterations()));
+            runsfw.write(String.format("ALPHA=%.2f; BETA=%.2f; RHO=%.2f\n", parameters.getAlpha(), parameters.getBeta(), parameters.getRho()));
+            runsfw.write(String.format("Q=%.2f; TAU_0=%.4f; P_0=%.4f\n\n", parameters.getQ(), parameters.getTau0(), parameters.getP0()));
             runsfw.write("Results:\n");
             runsfw.write("Timestamp;Iterations;BestLength;ComputationTime\n");
         }
@@ -185,8 +374,8 @@ public class ACOSolverMain {
         runsfw.close();
     }
 
-    private static void logResult(int iteration, double length, List<Boolean> solution, 
-                                List<Usek> useky, double totalTime, ACOOptimizer optimizer) {
+    private static void logResult(int iteration, double length, Solution solution, 
+                                List<Usek> useky, double totalTime, ACOParameters parameters) {
         try {
             FileWriter fw = new FileWriter(RESULTS_FILE, true);
             StringBuilder sb = new StringBuilder();
@@ -199,24 +388,22 @@ public class ACOSolverMain {
             sb.append(String.format("Found at: %s (Iteration %d)\n", timestamp, iteration));
 
             sb.append("\nAlgorithm Parameters:\n");
-            sb.append(String.format("NUM_ANTS=%d, MAX_ITERATIONS=%d\n", optimizer.getNumAnts(), optimizer.getMaxIterations()));
-            sb.append(String.format("ALPHA=%.2f, BETA=%.2f, RHO=%.2f\n", optimizer.getAlpha(), optimizer.getBeta(), optimizer.getRho()));
-            sb.append(String.format("Q=%.2f, TAU_0=%.4f, P_0=%.4f\n", optimizer.getQ(), optimizer.getTau0(), optimizer.getP0()));
+            sb.append(String.format("NUM_ANTS=%d, MAX_ITERATIONS=%d\n", parameters.getNumAnts(), parameters.getMaxIterations()));
+            sb.append(String.format("ALPHA=%.2f, BETA=%.2f, RHO=%.2f\n", parameters.getAlpha(), parameters.getBeta(), parameters.getRho()));
+            sb.append(String.format("Q=%.2f, TAU_0=%.4f, P_0=%.4f\n", parameters.getQ(), parameters.getTau0(), parameters.getP0()));
 
             sb.append("\nSolution Metrics:\n");
             sb.append(String.format("Total Length: %.2f meters\n", length));
             sb.append(String.format("Computation Time: %.2f seconds\n", totalTime));
             sb.append(String.format("Number of Wired Segments: %d\n", 
-                solution.stream().filter(b -> b).count()));
+                solution.cardinality()));
 
             sb.append("\nWired Segments:\n");
             sb.append("ID;StartNode;EndNode;Distance(m)\n");
-            for (int i = 0; i < solution.size(); i++) {
-                if (solution.get(i)) {
-                    Usek usek = useky.get(i);
-                    sb.append(String.format("%d;%d;%d;%.2f\n",
-                        usek.getId(), usek.getNode1Id(), usek.getNode2Id(), usek.getDistance()));
-                }
+            for (int i = solution.nextSetBit(0); i >= 0; i = solution.nextSetBit(i + 1)) {
+                Usek usek = useky.get(i);
+                sb.append(String.format("%d;%d;%d;%.2f\n",
+                    usek.getId(), usek.getNode1Id(), usek.getNode2Id(), usek.getDistance()));
             }
 
             sb.append("\n----------------------------------\n\n");
@@ -233,18 +420,12 @@ public class ACOSolverMain {
         }
     }
 
-    private static boolean isValidSolution(List<Boolean> solution, List<Usek> useky, List<Turnus> turnusy) {
+    private static boolean isValidSolution(Solution solution, List<Usek> useky, List<Turnus> turnusy) {
         if (solution == null) return false;
-        return solution.stream().filter(b -> !b).count() > 0;
+        return solution.cardinality() < solution.size();
     }
 
-    private static double calculateTotalLength(List<Boolean> solution, List<Usek> useky) {
-        double totalLength = 0;
-        for (int i = 0; i < solution.size(); i++) {
-            if (solution.get(i)) {
-                totalLength += useky.get(i).getDistance();
-            }
-        }
-        return totalLength;
+    private static double calculateTotalLength(Solution solution, List<Usek> useky) {
+        return solution.length(useky);
     }
 }
\ No newline at end of file
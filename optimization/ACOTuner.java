@@ -1,28 +1,51 @@
 package optimization;
 
+import model.ProblemInstance;
+import model.ProblemReduction;
+import model.Solution;
 import model.Turnus;
 import model.Usek;
 import util.CSVTuningLogger;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+public class ACOTuner implements AutoCloseable {
+    public enum Selection {
+        FULL,
+        SUCCESSIVE_HALVING
+    }
 
-public class ACOTuner {
     private final List<Usek> useky;
     private final List<Turnus> turnusy;
     private final double maxBatteryCapacity;
     private final double minBatteryLevel;
     private final double consumptionRate;
     private final double chargingRate;
+    private final ProblemInstance instance;
+    private final ProblemReduction reduction;
    
     private static final int REPLICATIONS = 10;
+    private static final int FINAL_RUNS = 50;
+    private Selection selection = Selection.FULL;
+    private int RACE_REPLICATIONS = 3;     // Short runs per value in each racing round
+    private int RACE_ETA = 2;              // Values kept per round is 1/RACE_ETA
+    private int RACE_FINALISTS = 2;        // Values that get the full REPLICATIONS at full budget
+    private int PARALLELISM = Runtime.getRuntime().availableProcessors();   // Concurrent tuning runs
+    private long seed = System.nanoTime();
+
+    private int JOINT_REPLICATIONS = 3;    // Runs averaged per configuration in the joint search
+    private int INITIAL_SAMPLES = 16;      // Latin hypercube points before the Parzen model takes over
 
-private int bestNumAnts = 40;
-    private int bestMaxIterations = 1500;
-    private double bestAlpha = 0.5;
-    private double bestBeta = 10.0;
-    private double bestRho = 0.5;
-    private double bestQ = 100.0;
-    private double bestTau0 = 0.01;
-    private double bestP0 = 0.1;
+    private ACOParameters bestParameters = new ACOParameters();
+    private ExecutorService executor;
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private EvaluationCache cache;
    
     public ACOTuner(List<Usek> useky, List<Turnus> turnusy,
                     double maxBatteryCapacity, double minBatteryLevel,
@@ -33,71 +56,135 @@ private int bestNumAnts = 40;
         this.minBatteryLevel = minBatteryLevel;
         this.consumptionRate = consumptionRate;
         this.chargingRate = chargingRate;
+        this.instance = ProblemInstance.compile(useky, turnusy, maxBatteryCapacity,
+                                                minBatteryLevel, consumptionRate, chargingRate);
+        this.reduction = ProblemReduction.analyze(instance);   // Same preprocessing as ACOSolverMain
     }
 
     private static class RunResult {
         double length;
-        List<Boolean> solution;
+        Solution solution;
+        double computationTime;
+        boolean cached;                     // Answered by the evaluation cache; computationTime is 0
        
-        RunResult(double length, List<Boolean> solution) {
+        RunResult(double length, Solution solution) {
+            this(length, solution, 0);
+        }
+
+        RunResult(double length, Solution solution, double computationTime) {
             this.length = length;
-            this.solution = solution != null ? new ArrayList<>(solution) : null;
+            this.solution = solution != null ? solution.copy() : null;
+            this.computationTime = computationTime;
+        }
+
+        static RunResult cached(double length, Solution solution) {
+            RunResult result = new RunResult(length, solution);
+            result.cached = true;
+            return result;
         }
     }
 
     private void tuneParameter(String paramName, double[] testValues,
-                             java.util.function.Consumer<Double> setter) {
+                             BiConsumer<ACOParameters, Double> setter) {
+        List<String> labels = new ArrayList<>();
+        List<ACOParameters> candidates = new ArrayList<>();
+        for (double value : testValues) {
+            ACOParameters candidate = bestParameters.copy();
+            setter.accept(candidate, value);
+            labels.add(String.format("%.4f", value));
+            candidates.add(candidate);
+        }
+        int bestIndex = tuneCandidates(paramName, labels, candidates);
+        if (bestIndex >= 0) {
+            setter.accept(bestParameters, testValues[bestIndex]);
+        }
+    }
+
+    private void tuneParameter(String paramName, int[] testValues,
+                             BiConsumer<ACOParameters, Integer> setter) {
+        List<String> labels = new ArrayList<>();
+        List<ACOParameters> candidates = new ArrayList<>();
+        for (int value : testValues) {
+            ACOParameters candidate = bestParameters.copy();
+            setter.accept(candidate, value);
+            labels.add(String.valueOf(value));
+            candidates.add(candidate);
+        }
+        int bestIndex = tuneCandidates(paramName, labels, candidates);
+        if (bestIndex >= 0) {
+            setter.accept(bestParameters, testValues[bestIndex]);
+        }
+    }
+
+    // Submits every (value, replication) run at once and then reads the results back in
+    // submission order, so statistics and CSV rows come out the same however the runs finish.
+    private int tuneCandidates(String paramName, List<String> labels, List<ACOParameters> candidates) {
         System.out.printf("\nTesting %s...\n", paramName);
-        double bestValue = Double.NaN;
+        List<Integer> survivors = new ArrayList<>();
+        for (int v = 0; v < candidates.size(); v++) {
+            survivors.add(v);
+        }
+        if (selection == Selection.SUCCESSIVE_HALVING) {
+            survivors = race(paramName, labels, candidates);
+        }
+
+        List<List<Future<RunResult>>> futures = new ArrayList<>();
+        for (int v : survivors) {
+            List<Future<RunResult>> runs = new ArrayList<>();
+            for (int rep = 0; rep < REPLICATIONS; rep++) {
+                runs.add(submit(candidates.get(v), runSeed("REPLICATION", rep)));
+            }
+            futures.add(runs);
+        }
+
+        int bestIndex = -1;
         double bestLength = Double.MAX_VALUE;
 
-        for (double value : testValues) {
+        for (int k = 0; k < survivors.size(); k++) {
+            int v = survivors.get(k);
+            String value = labels.get(v);
             RunResult best = new RunResult(Double.MAX_VALUE, null);
             RunResult worst = new RunResult(Double.MIN_VALUE, null);
             double avgLength = 0;
             double avgTime = 0;
             int validRuns = 0;
+            int timedRuns = 0;
 
-            System.out.printf("\nTesting value = %.4f\n", value);
+            System.out.printf("\nTesting value = %s\n", value);
             for (int rep = 0; rep < REPLICATIONS; rep++) {
-                ACOOptimizer optimizer = createOptimizer();
-                setter.accept(value);
-               
-                long startTime = System.nanoTime();
-                List<Boolean> solution = optimizer.optimize();
-                long endTime = System.nanoTime();
-                double computationTime = (endTime - startTime) / 1_000_000.0;
-               
-                if (isValidSolution(solution)) {
-                    double length = calculateTotalLength(solution);
+                RunResult result = await(futures.get(k).get(rep));
+                if (result != null) {
                     validRuns++;
-                    avgLength += length;
-                    avgTime += computationTime;
+                    avgLength += result.length;
+                    if (!result.cached) {
+                        timedRuns++;
+                        avgTime += result.computationTime;
+                    }
                    
                     CSVTuningLogger.logIndividualRun(
                         paramName,
-                        String.format("%.4f", value),
+                        value,
                         rep + 1,
-                        length,
-                        computationTime
+                        result.length,
+                        result.computationTime
                     );
                    
-                    if (length < best.length) {
-                        best = new RunResult(length, solution);
+                    if (result.length < best.length) {
+                        best = result;
                     }
-                    if (length > worst.length) {
-                        worst = new RunResult(length, solution);
+                    if (result.length > worst.length) {
+                        worst = result;
                     }
                 }
             }
 
             if (validRuns > 0) {
                 avgLength /= validRuns;
-                avgTime /= validRuns;
+                avgTime = timedRuns > 0 ? avgTime / timedRuns : 0;
                
                 CSVTuningLogger.logTuningRun(
                     paramName,
-                    String.format("%.4f", value),
+                    value,
                     best.length,
                     worst.length,
                     avgLength,
@@ -113,99 +200,266 @@ private int bestNumAnts = 40;
                
                 if (avgLength < bestLength) {
                     bestLength = avgLength;
-                    bestValue = value;
+                    bestIndex = v;
                 }
             }
         }
 
-        if (!Double.isNaN(bestValue)) {
-            setter.accept(bestValue);
-            System.out.printf("\nBest value: %.4f (avg length: %.2f)\n",
-                            bestValue, bestLength);
+        if (bestIndex >= 0) {
+            System.out.printf("\nBest value: %s (avg length: %.2f)\n",
+                            labels.get(bestIndex), bestLength);
         }
+        return bestIndex;
     }
 
-    private void tuneParameter(String paramName, int[] testValues,
-                             java.util.function.Consumer<Integer> setter) {
-        System.out.printf("\nTesting %s...\n", paramName);
-        int bestValue = -1;
-        double bestLength = Double.MAX_VALUE;
+    // Successive halving: every surviving value gets RACE_REPLICATIONS short runs, values are
+    // ranked within each replication (runs of one replication share a seed, so each is a block as
+    // in the Friedman test) and the better 1/RACE_ETA by rank sum go on. Budgets grow by RACE_ETA
+    // per round and reach the full MAX_ITERATIONS only for the finalists.
+    private List<Integer> race(String paramName, List<String> labels, List<ACOParameters> candidates) {
+        List<Integer> survivors = new ArrayList<>();
+        for (int v = 0; v < candidates.size(); v++) {
+            survivors.add(v);
+        }
+        int rounds = 0;
+        for (int n = survivors.size(); n > RACE_FINALISTS; n = (n + RACE_ETA - 1) / RACE_ETA) {
+            rounds++;
+        }
 
-        for (int value : testValues) {
-            RunResult best = new RunResult(Double.MAX_VALUE, null);
-            RunResult worst = new RunResult(Double.MIN_VALUE, null);
-            double avgLength = 0;
-            double avgTime = 0;
-            int validRuns = 0;
+        for (int round = 0; round < rounds; round++) {
+            double fraction = Math.pow(RACE_ETA, round - rounds);
+            List<List<Future<RunResult>>> futures = new ArrayList<>();
+            for (int v : survivors) {
+                ACOParameters shortRun = candidates.get(v).copy();
+                shortRun.setMaxIterations(Math.max(1, (int) Math.round(shortRun.getMaxIterations() * fraction)));
+                List<Future<RunResult>> runs = new ArrayList<>();
+                for (int rep = 0; rep < RACE_REPLICATIONS; rep++) {
+                    runs.add(submit(shortRun, runSeed("RACE", rep)));
+                }
+                futures.add(runs);
+            }
 
-            System.out.printf("\nTesting value = %d\n", value);
-            for (int rep = 0; rep < REPLICATIONS; rep++) {
-                ACOOptimizer optimizer = createOptimizer();
-                setter.accept(value);
-               
-                long startTime = System.nanoTime();
-                List<Boolean> solution = optimizer.optimize();
-                long endTime = System.nanoTime();
-                double computationTime = (endTime - startTime) / 1_000_000.0;
-               
-                if (isValidSolution(solution)) {
-                    double length = calculateTotalLength(solution);
-                    validRuns++;
-                    avgLength += length;
-                    avgTime += computationTime;
-                   
-                    CSVTuningLogger.logIndividualRun(
-                        paramName,
-                        String.valueOf(value),
-                        rep + 1,
-                        length,
-                        computationTime
-                    );
-                   
-                    if (length < best.length) {
-                        best = new RunResult(length, solution);
-                    }
-                    if (length > worst.length) {
-                        worst = new RunResult(length, solution);
+            int count = survivors.size();
+            double[][] lengths = new double[RACE_REPLICATIONS][count];
+            for (int k = 0; k < count; k++) {
+                for (int rep = 0; rep < RACE_REPLICATIONS; rep++) {
+                    RunResult result = await(futures.get(k).get(rep));
+                    lengths[rep][k] = result != null ? result.length : Double.MAX_VALUE;
+                }
+            }
+            double[] rankSums = new double[count];
+            for (int rep = 0; rep < RACE_REPLICATIONS; rep++) {
+                for (int k = 0; k < count; k++) {
+                    double rank = 1;
+                    for (int other = 0; other < count; other++) {
+                        if (lengths[rep][other] < lengths[rep][k]) {
+                            rank++;
+                        } else if (other != k && lengths[rep][other] == lengths[rep][k]) {
+                            rank += 0.5;
+                        }
                     }
+                    rankSums[k] += rank;
                 }
             }
 
-            if (validRuns > 0) {
-                avgLength /= validRuns;
-                avgTime /= validRuns;
-               
-                CSVTuningLogger.logTuningRun(
-                    paramName,
-                    String.valueOf(value),
-                    best.length,
-                    worst.length,
-                    avgLength,
-                    validRuns,
-                    avgTime
-                );
+            Integer[] order = new Integer[count];
+            for (int k = 0; k < count; k++) {
+                order[k] = k;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(k -> rankSums[k]));
+            int keep = (count + RACE_ETA - 1) / RACE_ETA;
+            List<Integer> next = new ArrayList<>();
+            StringBuilder dropped = new StringBuilder();
+            for (int position = 0; position < count; position++) {
+                int v = survivors.get(order[position]);
+                if (position < keep) {
+                    next.add(v);
+                } else {
+                    dropped.append(dropped.length() > 0 ? ", " : "").append(labels.get(v));
+                }
+            }
+            Collections.sort(next);
 
-                System.out.printf("Best result: %.2f meters\n", best.length);
-                System.out.printf("Worst result: %.2f meters\n", worst.length);
-                System.out.printf("Average length: %.2f (valid runs: %d/%d)\n",
-                                avgLength, validRuns, REPLICATIONS);
-                System.out.printf("Average computation time: %.2f ms\n", avgTime);
-               
-                if (avgLength < bestLength) {
-                    bestLength = avgLength;
-                    bestValue = value;
+            System.out.printf("Race round %d/%d: %d values x %d runs at %.0f%% of MAX_ITERATIONS, dropped %s\n",
+                            round + 1, rounds, count, RACE_REPLICATIONS, fraction * 100, dropped);
+            survivors = next;
+        }
+        return survivors;
+    }
+
+    // Seeds depend only on the stream and the replication, so every configuration is compared on
+    // common random numbers, and a configuration met again in a later pass or parameter sweep
+    // repeats the same runs, which the evaluation cache then answers without running them.
+    private long runSeed(String stream, int rep) {
+        return seed + 0x9E3779B97F4A7C15L * (31L * stream.hashCode() + rep + 1);
+    }
+
+    // Each run builds its own optimizer inside the worker, so nothing mutable is shared.
+    private Future<RunResult> submit(ACOParameters parameters, long runSeed) {
+        if (cache != null) {
+            EvaluationCache.Entry entry = cache.get(parameters, runSeed);
+            if (entry != null) {
+                // Charged at the run's recorded time, so a search resumed against the cache does not
+                // get its budget back for the runs it already paid for.
+                cpuNanos.addAndGet((long) (entry.getComputationTime() * 1_000_000));
+                return CompletableFuture.completedFuture(entry.isValid()
+                    ? RunResult.cached(entry.getLength(), entry.getSolution())
+                    : null);
+            }
+        }
+        return executor.submit(() -> {
+            ACOOptimizer optimizer = createOptimizer(parameters);
+            optimizer.setSeed(runSeed);
+
+            long cpuStart = threadCpuNanos();
+            long startTime = System.nanoTime();
+            Solution solution = optimizer.optimize();
+            long endTime = System.nanoTime();
+            double computationTime = (endTime - startTime) / 1_000_000.0;
+            cpuNanos.addAndGet(threadCpuNanos() - cpuStart);
+
+            boolean valid = isValidSolution(solution);
+            double length = solution != null ? calculateTotalLength(solution) : Double.MAX_VALUE;
+            if (cache != null) {
+                cache.put(parameters, runSeed, length, computationTime, valid ? solution : null);
+            }
+            if (!valid) {
+                return null;
+            }
+            return new RunResult(length, solution, computationTime);
+        });
+    }
+
+    private static long threadCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpu = threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+        return cpu >= 0 ? cpu : System.nanoTime();
+    }
+
+    private RunResult await(Future<RunResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("tuning interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("tuning run failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Searches all eight parameters together until the tuning runs have used cpuSeconds of CPU
+    // time, cached runs included: INITIAL_SAMPLES Latin hypercube points first, then TreeParzenSampler proposals.
+    public void tuneJoint(double cpuSeconds) {
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        try {
+            runJointSearch((long) (cpuSeconds * 1e9));
+        } finally {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private void runJointSearch(long budgetNanos) {
+        long startTime = System.currentTimeMillis();
+        System.out.println("Starting joint ACO parameter search...");
+        CSVTuningLogger.initializeFiles(
+            bestParameters.getAlpha(), bestParameters.getBeta(), bestParameters.getRho(), bestParameters.getQ(),
+            bestParameters.getTau0(), bestParameters.getP0(), bestParameters.getNumAnts(), bestParameters.getMaxIterations()
+        );
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] initial = ParameterSpace.latinHypercube(INITIAL_SAMPLES, random);
+        TreeParzenSampler sampler = new TreeParzenSampler(ParameterSpace.DIMENSIONS);
+        ACOParameters bestFound = null;
+        double bestScore = Double.MAX_VALUE;
+        int trials = 0;
+        cpuNanos.set(0);
+
+        while (cpuNanos.get() < budgetNanos) {
+            List<double[]> points = new ArrayList<>();
+            List<List<Future<RunResult>>> futures = new ArrayList<>();
+            for (int b = 0; b < PARALLELISM; b++) {
+                int trial = trials + b;
+                double[] point = trial < INITIAL_SAMPLES ? initial[trial] : sampler.propose(random);
+                ACOParameters parameters = ParameterSpace.decode(point);
+                List<Future<RunResult>> runs = new ArrayList<>();
+                for (int rep = 0; rep < JOINT_REPLICATIONS; rep++) {
+                    runs.add(submit(parameters, runSeed("REPLICATION", rep)));
                 }
+                points.add(point);
+                futures.add(runs);
+            }
+
+            for (int b = 0; b < points.size(); b++) {
+                ACOParameters parameters = ParameterSpace.decode(points.get(b));
+                String value = parameters.toString().replace(';', ' ');
+                RunResult best = new RunResult(Double.MAX_VALUE, null);
+                RunResult worst = new RunResult(Double.MIN_VALUE, null);
+                double avgLength = 0;
+                double avgTime = 0;
+                int validRuns = 0;
+                int timedRuns = 0;
+
+                for (int rep = 0; rep < JOINT_REPLICATIONS; rep++) {
+                    RunResult result = await(futures.get(b).get(rep));
+                    if (result != null) {
+                        validRuns++;
+                        avgLength += result.length;
+                        if (!result.cached) {
+                            timedRuns++;
+                            avgTime += result.computationTime;
+                        }
+                        CSVTuningLogger.logIndividualRun("JOINT", value, rep + 1, result.length, result.computationTime);
+                        if (result.length < best.length) {
+                            best = result;
+                        }
+                        if (result.length > worst.length) {
+                            worst = result;
+                        }
+                    }
+                }
+
+                double score = Double.MAX_VALUE;
+                if (validRuns > 0) {
+                    avgLength /= validRuns;
+                    avgTime = timedRuns > 0 ? avgTime / timedRuns : 0;
+                    CSVTuningLogger.logTuningRun("JOINT", value, best.length, worst.length,
+                                                 avgLength, validRuns, avgTime);
+                    if (validRuns == JOINT_REPLICATIONS) {
+                        score = avgLength;
+                    }
+                }
+                sampler.observe(points.get(b), score);
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestFound = parameters;
+                }
+                System.out.printf("Trial %d: %s -> %s (CPU %.1f/%.1f s)\n", ++trials, value,
+                                validRuns == JOINT_REPLICATIONS ? String.format("avg %.2f", avgLength) : "invalid runs",
+                                cpuNanos.get() / 1e9, budgetNanos / 1e9);
             }
         }
 
-        if (bestValue != -1) {
-            setter.accept(bestValue);
-            System.out.printf("\nBest value: %d (avg length: %.2f)\n",
-                            bestValue, bestLength);
+        if (bestFound == null) {
+            System.out.println("No configuration produced valid solutions within the budget");
+            return;
         }
+        bestParameters = bestFound;
+        System.out.printf("\nJoint search evaluated %d configurations, best avg length %.2f\n", trials, bestScore);
+        finishTuning(startTime);
     }
 
     public void tuneAll() {
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        try {
+            runPasses();
+        } finally {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private void runPasses() {
         for (int i = 0; i < 5; i++) {
             System.out.println("================= tuning of parameters no " + (i + 1) + " ===========================");
             CSVTuningLogger.logExperimentNumber(i + 1);
@@ -214,119 +468,132 @@ private int bestNumAnts = 40;
             System.out.println("Starting ACO parameter tuning...");
            
             CSVTuningLogger.initializeFiles(
-                bestAlpha, bestBeta, bestRho, bestQ,
-                bestTau0, bestP0, bestNumAnts, bestMaxIterations
+                bestParameters.getAlpha(), bestParameters.getBeta(), bestParameters.getRho(), bestParameters.getQ(),
+                bestParameters.getTau0(), bestParameters.getP0(), bestParameters.getNumAnts(), bestParameters.getMaxIterations()
             );
            
             tuneParameter("ALPHA", new double[]{0.001, 0.01,0.1, 0.3, 0.5, 0.7, 1.0, 1.5},
-                         value -> setAlpha(value));
+                         ACOParameters::setAlpha);
             tuneParameter("BETA", new double[]{0.5, 0.75, 1.0, 1.5, 2.0, 3.0, 4.0, 5.0, 10.0},
-                         value -> setBeta(value));
+                         ACOParameters::setBeta);
             tuneParameter("P_0", new double[]{0.01, 0.025, 0.05, 0.1, 0.2, 0.3},
-                         value -> setP0(value));
+                         ACOParameters::setP0);
             tuneParameter("NUM_ANTS", new int[]{30, 40, 50, 75, 100, 150},
-                         value -> setNumAnts(value));
+                         ACOParameters::setNumAnts);
             tuneParameter("Q", new double[]{10.0, 50.0, 100.0, 250.0, 500.0, 750.0, 1000.0, 1500.0},  
-                         value -> setQ(value));
+                         ACOParameters::setQ);
             tuneParameter("RHO", new double[]{0.1, 0.3, 0.5, 0.6, 0.7, 0.75, 0.8, 0.85, 0.9},
-                         value -> setRho(value));
+                         ACOParameters::setRho);
             tuneParameter("TAU_0", new double[]{0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 1.0},
-                         value -> setTau0(value));
+                         ACOParameters::setTau0);
             tuneParameter("MAX_ITERATIONS", new int[]{500, 750, 1000, 1500, 2000, 3000},
-                      value -> setMaxIterations(value));
+                      ACOParameters::setMaxIterations);
 
-            System.out.println("\n=================================");
-            System.out.println("Parameter tuning complete!");
-            System.out.println("=================================");
-           
-            CSVTuningLogger.logBestConfiguration(
-                bestAlpha, bestBeta, bestRho, bestQ,
-                bestTau0, bestP0, bestNumAnts, bestMaxIterations
-            );
-           
-            printBestConfiguration();
-           
-            System.out.println("\nRunning 50 final experiments with best parameters...");
-            List<RunResult> results = new ArrayList<>();
-            RunResult bestRun = new RunResult(Double.MAX_VALUE, null);
-            RunResult worstRun = new RunResult(Double.MIN_VALUE, null);
-            double totalLength = 0;
-            int validRuns = 0;
+            finishTuning(startTime);
+        }
+    }
 
-            for (int j = 0; j < 50; j++) {
-                ACOOptimizer optimizer = createOptimizer();
-                List<Boolean> solution = optimizer.optimize();
-               
-                if (isValidSolution(solution)) {
-                    double length = calculateTotalLength(solution);
-                    validRuns++;
-                    totalLength += length;
-                   
-                    RunResult result = new RunResult(length, solution);
-                    results.add(result);
-                   
-                    if (length < bestRun.length) {
-                        bestRun = result;
-                    }
-                    if (length > worstRun.length) {
-                        worstRun = result;
-                    }
+    // Logs the configuration in bestParameters and checks it with FINAL_RUNS independent runs.
+    private void finishTuning(long startTime) {
+        System.out.println("\n=================================");
+        System.out.println("Parameter tuning complete!");
+        System.out.println("=================================");
+       
+        CSVTuningLogger.logBestConfiguration(
+            bestParameters.getAlpha(), bestParameters.getBeta(), bestParameters.getRho(), bestParameters.getQ(),
+            bestParameters.getTau0(), bestParameters.getP0(), bestParameters.getNumAnts(), bestParameters.getMaxIterations()
+        );
+       
+        printBestConfiguration();
+       
+        System.out.printf("\nRunning %d final experiments with best parameters...\n", FINAL_RUNS);
+        List<RunResult> results = new ArrayList<>();
+        RunResult bestRun = new RunResult(Double.MAX_VALUE, null);
+        RunResult worstRun = new RunResult(Double.MIN_VALUE, null);
+        EliteArchive topRuns = new EliteArchive(5);
+        double totalLength = 0;
+        int validRuns = 0;
 
-                    System.out.printf("Run %d: Length = %.2f meters\n", j + 1, length);
+        List<Future<RunResult>> finalRuns = new ArrayList<>();
+        for (int j = 0; j < FINAL_RUNS; j++) {
+            finalRuns.add(submit(bestParameters.copy(), runSeed("FINAL", j)));
+        }
+
+        for (int j = 0; j < FINAL_RUNS; j++) {
+            RunResult result = await(finalRuns.get(j));
+           
+            if (result != null) {
+                double length = result.length;
+                validRuns++;
+                totalLength += length;
+               
+                results.add(result);
+                topRuns.offer(result.solution, length);
+               
+                if (length < bestRun.length) {
+                    bestRun = result;
                 }
+                if (length > worstRun.length) {
+                    worstRun = result;
+                }
+
+                System.out.printf("Run %d: Length = %.2f meters\n", j + 1, length);
             }
+        }
 
-            if (validRuns > 0) {
-                List<Double> allLengths = results.stream()
-                    .map(r -> r.length)
-                    .sorted()
-                    .collect(java.util.stream.Collectors.toList());
-                   
-                double median = (allLengths.size() % 2 == 0) ?
-                    (allLengths.get(allLengths.size()/2) + allLengths.get(allLengths.size()/2 - 1))/2 :
-                    allLengths.get(allLengths.size()/2);
-                double average = totalLength / validRuns;
+        if (validRuns > 0) {
+            List<Double> allLengths = results.stream()
+                .map(r -> r.length)
+                .sorted()
+                .collect(java.util.stream.Collectors.toList());
                
-                System.out.println("\nFinal Results (50 runs):");
-                System.out.println("=========================");
-                System.out.printf("Best result: %.2f meters\n", bestRun.length);
-                System.out.printf("Worst result: %.2f meters\n", worstRun.length);
-                System.out.printf("Average length: %.2f meters\n", average);
-                System.out.printf("Median length: %.2f meters\n", median);
-                System.out.printf("Standard deviation: %.2f meters\n",
-                    calculateStandardDeviation(allLengths, average));
-                System.out.printf("Valid runs: %d/50\n", validRuns);
+            double median = (allLengths.size() % 2 == 0) ?
+                (allLengths.get(allLengths.size()/2) + allLengths.get(allLengths.size()/2 - 1))/2 :
+                allLengths.get(allLengths.size()/2);
+            double average = totalLength / validRuns;
+           
+            System.out.printf("\nFinal Results (%d runs):\n", FINAL_RUNS);
+            System.out.println("=========================");
+            System.out.printf("Best result: %.2f meters\n", bestRun.length);
+            System.out.printf("Worst result: %.2f meters\n", worstRun.length);
+            System.out.printf("Average length: %.2f meters\n", average);
+            System.out.printf("Median length: %.2f meters\n", median);
+            System.out.printf("Standard deviation: %.2f meters\n",
+                calculateStandardDeviation(allLengths, average));
+            System.out.printf("Valid runs: %d/%d\n", validRuns, FINAL_RUNS);
+            System.out.printf("Distinct solutions among top 5: %d\n", topRuns.size());
+           
+            if (bestRun.solution != null) {
+                long endTime = System.currentTimeMillis();
                
-                if (bestRun.solution != null) {
-                    long endTime = System.currentTimeMillis();
-                   
-                    CSVTuningLogger.logBestSolution(
-                        useky, bestRun.solution, bestRun.length,
-                        (endTime - startTime) / 1000.0,
-                        bestAlpha, bestBeta, bestRho, bestQ,
-                        bestTau0, bestP0, bestNumAnts, bestMaxIterations
-                    );
-                   
-                    System.out.println("\nBest Solution Details:");
-                    System.out.println("=====================");
-                    System.out.printf("Length: %.2f meters\n", bestRun.length);
-                    long wiredCount = bestRun.solution.stream().filter(b -> b).count();
-                    System.out.printf("Number of wired segments: %d\n", wiredCount);
-                   
-                    System.out.println("\nWired segments in best solution:");
-                    for (int j = 0; j < bestRun.solution.size(); j++) {
-                        if (bestRun.solution.get(j)) {
-                            Usek usek = useky.get(j);
-                            System.out.printf("Segment %d: Node %d -> %d (%.2f meters)\n",
-                                usek.getId(), usek.getNode1Id(), usek.getNode2Id(), usek.getDistance());
-                        }
-                    }
+                CSVTuningLogger.logBestSolution(
+                    useky, bestRun.solution, bestRun.length,
+                    (endTime - startTime) / 1000.0,
+                    bestParameters.getAlpha(), bestParameters.getBeta(), bestParameters.getRho(), bestParameters.getQ(),
+                    bestParameters.getTau0(), bestParameters.getP0(), bestParameters.getNumAnts(), bestParameters.getMaxIterations()
+                );
+               
+                System.out.println("\nBest Solution Details:");
+                System.out.println("=====================");
+                System.out.printf("Length: %.2f meters\n", bestRun.length);
+                int wiredCount = bestRun.solution.cardinality();
+                System.out.printf("Number of wired segments: %d\n", wiredCount);
+               
+                System.out.println("\nWired segments in best solution:");
+                for (int j = bestRun.solution.nextSetBit(0); j >= 0; j = bestRun.solution.nextSetBit(j + 1)) {
+                    Usek usek = useky.get(j);
+                    System.out.printf("Segment %d: Node %d -> %d (%.2f meters)\n",
+                        usek.getId(), usek.getNode1Id(), usek.getNode2Id(), usek.getDistance());
                 }
             }
-           
-            long endTime = System.currentTimeMillis();
-            System.out.printf("\nTotal computation time: %.2f seconds\n",
-                             (endTime - startTime) / 1000.0);
+        }
+       
+        long endTime = System.currentTimeMillis();
+        System.out.printf("\nTotal computation time: %.2f seconds\n",
+                         (endTime - startTime) / 1000.0);
+        if (cache != null) {
+            System.out.printf("Evaluation cache: %d hits, %d runs, %d stored results\n",
+                            cache.getHits(), cache.getMisses(), cache.size());
         }
     }
 
@@ -337,55 +604,75 @@ private int bestNumAnts = 40;
             .orElse(0.0));
     }
 
-    private ACOOptimizer createOptimizer() {
-        ACOOptimizer optimizer = new ACOOptimizer(useky, turnusy, maxBatteryCapacity,
-                                                minBatteryLevel, consumptionRate, chargingRate);
-       
-        optimizer.setNumAnts(bestNumAnts);
-        optimizer.setMaxIterations(bestMaxIterations);
-        optimizer.setAlpha(bestAlpha);
-        optimizer.setBeta(bestBeta);
-        optimizer.setRho(bestRho);
-        optimizer.setQ(bestQ);
-        optimizer.setTau0(bestTau0);
-        optimizer.setP0(bestP0);
+    private ACOOptimizer createOptimizer(ACOParameters parameters) {
+        ACOOptimizer optimizer = new ACOOptimizer(instance);
+        optimizer.setReduction(reduction);
+        parameters.applyTo(optimizer);
         return optimizer;
     }
 
-    private boolean isValidSolution(List<Boolean> solution) {
+    private boolean isValidSolution(Solution solution) {
         if (solution == null) return false;
-        return solution.stream().filter(b -> !b).count() > 0;
+        return solution.cardinality() < solution.size();
     }
 
-    private double calculateTotalLength(List<Boolean> solution) {
-        double totalLength = 0;
-        for (int i = 0; i < solution.size(); i++) {
-            if (solution.get(i)) {
-                totalLength += useky.get(i).getDistance();
-            }
-        }
-        return totalLength;
+    private double calculateTotalLength(Solution solution) {
+        return instance.length(solution);
     }
 
     public void printBestConfiguration() {
         System.out.println("\nBest ACO Configuration:");
         System.out.println("=======================");
-        System.out.printf("TAU_0: %.4f\n", bestTau0);
-        System.out.printf("P_0: %.4f\n", bestP0);
-        System.out.printf("ALPHA: %.4f\n", bestAlpha);
-        System.out.printf("BETA: %.4f\n", bestBeta);
-        System.out.printf("RHO: %.4f\n", bestRho);
-        System.out.printf("Q: %.4f\n", bestQ);
-        System.out.printf("NUM_ANTS: %d\n", bestNumAnts);
-        System.out.printf("MAX_ITERATIONS: %d\n", bestMaxIterations);
+        System.out.printf("TAU_0: %.4f\n", bestParameters.getTau0());
+        System.out.printf("P_0: %.4f\n", bestParameters.getP0());
+        System.out.printf("ALPHA: %.4f\n", bestParameters.getAlpha());
+        System.out.printf("BETA: %.4f\n", bestParameters.getBeta());
+        System.out.printf("RHO: %.4f\n", bestParameters.getRho());
+        System.out.printf("Q: %.4f\n", bestParameters.getQ());
+        System.out.printf("NUM_ANTS: %d\n", bestParameters.getNumAnts());
+        System.out.printf("MAX_ITERATIONS: %d\n", bestParameters.getMaxIterations());
+    }
+
+    // Closes the evaluation cache, so its last records reach the file.
+    @Override
+    public void close() throws IOException {
+        if (cache != null) {
+            cache.close();
+            cache = null;
+        }
     }
 
-    private void setTau0(double value) { bestTau0 = value; }
-    private void setP0(double value) { bestP0 = value; }
-    private void setAlpha(double value) { bestAlpha = value; }
-    private void setBeta(double value) { bestBeta = value; }
-    private void setRho(double value) { bestRho = value; }
-    private void setQ(double value) { bestQ = value; }
-    private void setNumAnts(int value) { bestNumAnts = value; }
-    private void setMaxIterations(int value) { bestMaxIterations = value; }
-}
\ No newline at end of file
+    public ACOParameters getBestParameters() { return bestParameters.copy(); }
+    public int getParallelism() { return PARALLELISM; }
+    public long getSeed() { return seed; }
+    public EvaluationCache getEvaluationCache() { return cache; }
+
+    public Selection getSelection() { return selection; }
+    public int getRaceReplications() { return RACE_REPLICATIONS; }
+    public int getRaceEta() { return RACE_ETA; }
+    public int getRaceFinalists() { return RACE_FINALISTS; }
+    public int getJointReplications() { return JOINT_REPLICATIONS; }
+    public int getInitialSamples() { return INITIAL_SAMPLES; }
+
+    public void setParallelism(int value) { this.PARALLELISM = Math.max(1, value); }
+    public void setSeed(long value) { this.seed = value; }
+    // An existing cache file brings back the seed it was created with, so a restarted tuner
+    // repeats the same runs and finds them stored.
+    public void setEvaluationCache(Path file) throws IOException {
+        close();
+        String settings = createOptimizer(bestParameters).describeSettings();
+        this.cache = new EvaluationCache(file, EvaluationCache.fingerprint(useky, turnusy, maxBatteryCapacity,
+                                                                           minBatteryLevel, consumptionRate,
+                                                                           chargingRate, settings), seed);
+        if (cache.getSeed() != seed) {
+            System.out.printf("Reusing tuner seed %d from %s\n", cache.getSeed(), file);
+            this.seed = cache.getSeed();
+        }
+    }
+    public void setSelection(Selection selection) { this.selection = selection; }
+    public void setRaceReplications(int value) { this.RACE_REPLICATIONS = Math.max(1, value); }
+    public void setRaceEta(int value) { this.RACE_ETA = Math.max(2, value); }
+    public void setRaceFinalists(int value) { this.RACE_FINALISTS = Math.max(1, value); }
+    public void setJointReplications(int value) { this.JOINT_REPLICATIONS = Math.max(1, value); }
+    public void setInitialSamples(int value) { this.INITIAL_SAMPLES = Math.max(1, value); }
+}
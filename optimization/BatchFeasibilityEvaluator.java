@@ -0,0 +1,135 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.Solution;
+import java.util.Arrays;
+
+public class BatchFeasibilityEvaluator {
+    private final ProblemInstance instance;
+    private final int segmentCount;
+    private final double[] consumption;
+    private final double[] charge;
+    private long[] columns;
+    private long[] valid;
+    private long[] alive;
+    private double[] battery;
+    private double[] distance;
+    private int blocks;
+
+    public BatchFeasibilityEvaluator(ProblemInstance instance) {
+        this.instance = instance;
+        this.segmentCount = instance.getSegmentCount();
+        this.consumption = new double[segmentCount];
+        this.charge = new double[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            consumption[s] = instance.getDistance(s) * instance.getConsumptionRate();
+            charge[s] = instance.getDistance(s) * instance.getChargingRate();
+        }
+        ensureCapacity(64);
+    }
+
+    private void ensureCapacity(int ants) {
+        int needed = (ants + 63) >>> 6;
+        if (columns == null || needed > blocks) {
+            blocks = needed;
+            columns = new long[segmentCount * blocks];
+            valid = new long[blocks];
+            alive = new long[blocks];
+            battery = new double[blocks << 6];
+            distance = new double[blocks << 6];
+        }
+    }
+
+    // Checks every pending ant against all turnusy at once. Wiring is transposed so that
+    // columns[segment * blocks + b] holds bit a for ant 64 * b + a, and each turnus sequence is
+    // walked once per generation instead of once per ant; results go to result[ant].
+    public void evaluate(Solution[] ants, boolean[] pending, boolean[] result) {
+        int antCount = ants.length;
+        ensureCapacity(antCount);
+        Arrays.fill(columns, 0L);
+        Arrays.fill(valid, 0L);
+        for (int ant = 0; ant < antCount; ant++) {
+            if (!pending[ant]) {
+                continue;
+            }
+            long bit = 1L << ant;
+            int block = ant >>> 6;
+            valid[block] |= bit;
+            Solution solution = ants[ant];
+            for (int s = solution.nextSetBit(0); s >= 0; s = solution.nextSetBit(s + 1)) {
+                columns[s * blocks + block] |= bit;
+            }
+        }
+
+        double maxBattery = instance.getMaxBatteryCapacity();
+        double floor = instance.getBatteryFloor();
+        double maxDistance = instance.getMaxDistanceWithoutCharging();
+
+        for (int t = 0; t < instance.getTurnusCount(); t++) {
+            int[] sequence = instance.getTurnusSegments(t);
+            boolean any = false;
+            for (int b = 0; b < blocks; b++) {
+                alive[b] = valid[b];
+                any |= alive[b] != 0;
+            }
+            if (!any) {
+                break;
+            }
+            Arrays.fill(battery, maxBattery);
+            Arrays.fill(distance, 0);
+
+            for (int segment : sequence) {
+                double segmentConsumption = consumption[segment];
+                double segmentCharge = charge[segment];
+                double segmentLength = instance.getDistance(segment);
+                int column = segment * blocks;
+                boolean anyAlive = false;
+
+                for (int b = 0; b < blocks; b++) {
+                    long live = alive[b];
+                    long wired = columns[column + b];
+                    int base = b << 6;
+                    for (long rest = live; rest != 0; rest &= rest - 1) {
+                        int bit = Long.numberOfTrailingZeros(rest);
+                        int ant = base + bit;
+                        double predictedBattery = battery[ant] - segmentConsumption;
+                        if (predictedBattery < floor || predictedBattery <= 0) {
+                            live &= ~(1L << bit);
+                        } else if ((wired & (1L << bit)) != 0) {
+                            battery[ant] = Math.min(maxBattery, battery[ant] + segmentCharge);
+                            distance[ant] = 0;
+                        } else {
+                            battery[ant] = predictedBattery;
+                            distance[ant] += segmentLength;
+                            if (distance[ant] > maxDistance) {
+                                live &= ~(1L << bit);
+                            }
+                        }
+                    }
+                    alive[b] = live;
+                    anyAlive |= live != 0;
+                }
+                if (!anyAlive) {
+                    break;
+                }
+            }
+
+            for (int b = 0; b < blocks; b++) {
+                int base = b << 6;
+                for (long rest = alive[b]; rest != 0; rest &= rest - 1) {
+                    int bit = Long.numberOfTrailingZeros(rest);
+                    if (battery[base + bit] < floor) {
+                        alive[b] &= ~(1L << bit);
+                    }
+                }
+                valid[b] = alive[b];
+            }
+        }
+
+        for (int ant = 0; ant < antCount; ant++) {
+            if (pending[ant]) {
+                result[ant] = (valid[ant >>> 6] & (1L << ant)) != 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.ProblemReduction;
+import model.Solution;
+import java.util.SplittableRandom;
+
+public class BatteryAwareBuilder {
+    private final ProblemInstance instance;
+    private final ProblemReduction reduction;
+    private final double[] distances;
+    private final Solution decided;
+    private final double[] batteryBefore;
+    private final double[] distanceBefore;
+
+    public BatteryAwareBuilder(ProblemInstance instance) {
+        this(instance, null);
+    }
+
+    public BatteryAwareBuilder(ProblemInstance instance, ProblemReduction reduction) {
+        this.instance = instance;
+        this.reduction = reduction;
+        this.distances = instance.getDistances();
+        this.decided = new Solution(instance.getSegmentCount());
+        this.batteryBefore = new double[instance.getMaxTurnusLength() + 1];
+        this.distanceBefore = new double[instance.getMaxTurnusLength() + 1];
+    }
+
+    public boolean build(Solution solution, double[] wiringProbability, double p0,
+                         SplittableRandom random) {
+        solution.clear();
+        decided.clear();
+        if (reduction != null) {
+            reduction.applyTo(solution);
+            decided.copyFrom(reduction.getFixedSegments());
+        }
+        boolean feasible = true;
+
+        for (int t = 0; t < instance.getTurnusCount(); t++) {
+            feasible &= walkTurnus(instance.getTurnusSegments(t), solution, wiringProbability, p0, random);
+        }
+
+        for (int i = 0; i < solution.size(); i++) {
+            if (!decided.get(i)) {
+                decide(i, solution, wiringProbability, p0, random);
+            }
+        }
+        return feasible;
+    }
+
+    // Wires whatever the turnusy still need on top of an already complete assignment.
+    public boolean repair(Solution solution) {
+        decided.setAll(true);
+        boolean feasible = true;
+        for (int t = 0; t < instance.getTurnusCount(); t++) {
+            feasible &= walkTurnus(instance.getTurnusSegments(t), solution, null, 0, null);
+        }
+        return feasible;
+    }
+
+    private boolean walkTurnus(int[] sequence, Solution solution, double[] wiringProbability,
+                               double p0, SplittableRandom random) {
+        double maxBattery = instance.getMaxBatteryCapacity();
+        double floor = instance.getBatteryFloor();
+        double consumptionRate = instance.getConsumptionRate();
+        double chargingRate = instance.getChargingRate();
+        double maxDistance = instance.getMaxDistanceWithoutCharging();
+
+        batteryBefore[0] = maxBattery;
+        distanceBefore[0] = 0;
+        int position = 0;
+
+        while (position < sequence.length) {
+            int segment = sequence[position];
+            if (!decided.get(segment)) {
+                decide(segment, solution, wiringProbability, p0, random);
+            }
+
+            double battery = batteryBefore[position];
+            double segmentLength = distances[segment];
+            double predictedBattery = battery - segmentLength * consumptionRate;
+
+            if (predictedBattery < floor || predictedBattery <= 0) {
+                int earlier = position - 1;
+                while (earlier >= 0 && solution.get(sequence[earlier])) {
+                    earlier--;
+                }
+                if (earlier < 0) {
+                    return false;
+                }
+                solution.set(sequence[earlier], true);
+                position = earlier;
+                continue;
+            }
+
+            double distance = distanceBefore[position] + segmentLength;
+            if (!solution.get(segment) && distance > maxDistance) {
+                solution.set(segment, true);
+            }
+
+            if (solution.get(segment)) {
+                batteryBefore[position + 1] = Math.min(maxBattery, battery + segmentLength * chargingRate);
+                distanceBefore[position + 1] = 0;
+            } else {
+                batteryBefore[position + 1] = predictedBattery;
+                distanceBefore[position + 1] = distance;
+            }
+            position++;
+        }
+        return true;
+    }
+
+    private void decide(int segment, Solution solution, double[] wiringProbability,
+                        double p0, SplittableRandom random) {
+        decided.set(segment, true);
+        if (random.nextDouble() < p0) {
+            solution.set(segment, random.nextBoolean());
+        } else {
+            solution.set(segment, random.nextDouble() < wiringProbability[segment]);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package optimization;
+
+import java.io.*;
+import java.nio.file.*;
+
+public class CheckpointFile {
+    private static final int MAGIC = 0x41434F43;   // "ACOC"
+    private static final int VERSION = 2;
+
+    public interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    public interface Reader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    // Writes to a temporary file next to the target and moves it over the target, so a crash
+    // leaves either the previous checkpoint or the new one, never a partial file.
+    public static void write(Path file, Writer writer) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writer.write(out);
+                out.flush();
+                fos.getFD().sync();
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static void read(Path file, Reader reader) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a checkpoint file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported checkpoint version " + version + ": " + file);
+            }
+            reader.read(in);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package optimization;
+
+import model.ProblemDecomposition;
+import model.ProblemInstance;
+import model.Solution;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+public class DecomposedOptimizer {
+    private int EXACT_SEGMENT_LIMIT = 24;  // Components up to this size are enumerated exactly
+    private int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private int CHECKPOINT_INTERVAL = 100; // Iterations between component checkpoints
+    private long seed = System.nanoTime();
+    private Solution warmStart;
+    private Path checkpointFile;
+
+    private final ProblemInstance instance;
+    private final ProblemDecomposition decomposition;
+    private final Consumer<ACOOptimizer> configurator;
+    private final double[] componentLengths;
+    private final boolean[] exactTried;
+    private final Solution[] exactSolutions;
+    private final ACOOptimizer[] optimizers;
+
+    public DecomposedOptimizer(ProblemInstance instance, Consumer<ACOOptimizer> configurator) {
+        this(instance, ProblemDecomposition.decompose(instance), configurator);
+    }
+
+    public DecomposedOptimizer(ProblemInstance instance, ProblemDecomposition decomposition,
+                               Consumer<ACOOptimizer> configurator) {
+        this.instance = instance;
+        this.decomposition = decomposition;
+        this.configurator = configurator;
+        int count = decomposition.getComponentCount();
+        this.componentLengths = new double[count];
+        this.exactTried = new boolean[count];
+        this.exactSolutions = new Solution[count];
+        this.optimizers = new ACOOptimizer[count];
+    }
+
+    public Solution optimize() {
+        return solve(false);
+    }
+
+    // Continues every ACO component from its checkpoint where one exists; the others start over.
+    public Solution resume() {
+        return solve(true);
+    }
+
+    // Exact components are solved on the first pass only; later passes re-run the ACO components.
+    private Solution solve(boolean resume) {
+        int count = decomposition.getComponentCount();
+        Solution[] results = new Solution[count];
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(PARALLELISM, count)));
+        try {
+            List<Future<Solution>> futures = new ArrayList<>();
+            for (int c = 0; c < count; c++) {
+                int index = c;
+                long componentSeed = seed + c;
+                futures.add(executor.submit(() -> solveComponent(index, componentSeed, resume)));
+            }
+            for (int c = 0; c < count; c++) {
+                results[c] = futures.get(c).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("component failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        Solution merged = new Solution(instance.getSegmentCount());
+        for (int c = 0; c < count; c++) {
+            ProblemDecomposition.Component component = decomposition.getComponent(c);
+            Solution local = results[c] != null ? results[c] : Solution.allWired(component.getSegmentCount());
+            componentLengths[c] = component.getInstance().length(local);
+            component.mapInto(local, merged);
+        }
+        return merged;
+    }
+
+    private Solution solveComponent(int index, long componentSeed, boolean resume) {
+        ProblemDecomposition.Component component = decomposition.getComponent(index);
+        if (!exactTried[index]) {
+            exactTried[index] = true;
+            if (component.getSegmentCount() <= EXACT_SEGMENT_LIMIT) {
+                exactSolutions[index] = new ExactSolver(component.getInstance()).solve();
+            }
+        }
+        if (exactSolutions[index] != null) {
+            return exactSolutions[index];
+        }
+
+        ACOOptimizer optimizer = getOptimizer(index);
+        optimizer.setSeed(componentSeed);
+        Path checkpoint = optimizer.getCheckpointFile();
+        if (resume && checkpoint != null && Files.exists(checkpoint)) {
+            try {
+                optimizer.restoreCheckpoint(checkpoint);
+                optimizer.runIterations(optimizer.getMaxIterations());
+                return optimizer.finishRun();
+            } catch (IOException e) {
+                System.err.println("Error reading checkpoint " + checkpoint + ", starting over: " + e.getMessage());
+            }
+        }
+        return optimizer.optimize();
+    }
+
+    private ACOOptimizer getOptimizer(int index) {
+        if (optimizers[index] == null) {
+            ProblemDecomposition.Component component = decomposition.getComponent(index);
+            ACOOptimizer optimizer = new ACOOptimizer(component.getInstance());
+            configurator.accept(optimizer);
+            if (warmStart != null) {
+                optimizer.setWarmStart(component.extract(warmStart));
+            }
+            if (checkpointFile != null) {
+                optimizer.setCheckpoint(getCheckpointFile(index), CHECKPOINT_INTERVAL);
+            }
+            optimizers[index] = optimizer;
+        }
+        return optimizers[index];
+    }
+
+    private Path getCheckpointFile(int index) {
+        return checkpointFile.resolveSibling(checkpointFile.getFileName() + "." + index);
+    }
+
+    public void deleteCheckpoints() throws IOException {
+        if (checkpointFile == null) {
+            return;
+        }
+        for (int c = 0; c < decomposition.getComponentCount(); c++) {
+            Files.deleteIfExists(getCheckpointFile(c));
+        }
+    }
+
+    public ProblemDecomposition getDecomposition() { return decomposition; }
+    // Null for a component solved exactly or not run yet.
+    public ACOOptimizer getComponentOptimizer(int component) { return optimizers[component]; }
+    public double getComponentLength(int component) { return componentLengths[component]; }
+
+    public int getExactComponents() {
+        int exact = 0;
+        for (Solution solution : exactSolutions) {
+            if (solution != null) {
+                exact++;
+            }
+        }
+        return exact;
+    }
+
+    public void setExactSegmentLimit(int value) { this.EXACT_SEGMENT_LIMIT = Math.max(0, value); }
+    public void setParallelism(int value) { this.PARALLELISM = Math.max(1, value); }
+    public void setSeed(long value) { this.seed = value; }
+    // Both apply to component optimizers built afterwards, so set them before the first pass.
+    public void setWarmStart(Solution solution) { this.warmStart = solution != null ? solution.copy() : null; }
+    public void setCheckpoint(Path file, int interval) {
+        this.checkpointFile = file;
+        this.CHECKPOINT_INTERVAL = Math.max(1, interval);
+    }
+
+    public int getExactSegmentLimit() { return EXACT_SEGMENT_LIMIT; }
+    public int getParallelism() { return PARALLELISM; }
+    public long getSeed() { return seed; }
+    public Solution getWarmStart() { return warmStart; }
+    public Path getCheckpointFile() { return checkpointFile; }
+}
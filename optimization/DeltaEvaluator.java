@@ -0,0 +1,136 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.Solution;
+import java.util.Arrays;
+
+public class DeltaEvaluator {
+    private final ProblemInstance instance;
+    private final double[] distances;
+    private final Solution solution;
+    private final boolean[] turnusValid;
+    private int invalidTurnusCount;
+    private double length;
+
+    private final int[] turnusMark;
+    private int markEpoch;
+    private final int[] touchedTurnusy;
+    private final boolean[] savedValid;
+    private int touchedCount;
+    private final int[] flippedSegments;
+    private int flippedCount;
+    private int savedInvalidCount;
+    private double savedLength;
+
+    public DeltaEvaluator(ProblemInstance instance) {
+        this.instance = instance;
+        this.distances = instance.getDistances();
+        this.solution = new Solution(instance.getSegmentCount());
+        this.turnusValid = new boolean[instance.getTurnusCount()];
+        this.turnusMark = new int[instance.getTurnusCount()];
+        this.touchedTurnusy = new int[instance.getTurnusCount()];
+        this.savedValid = new boolean[instance.getTurnusCount()];
+        this.flippedSegments = new int[instance.getSegmentCount()];
+    }
+
+    public void load(Solution source) {
+        solution.copyFrom(source);
+        invalidTurnusCount = 0;
+        for (int t = 0; t < turnusValid.length; t++) {
+            turnusValid[t] = instance.isTurnusValid(t, solution);
+            if (!turnusValid[t]) {
+                invalidTurnusCount++;
+            }
+        }
+        length = instance.length(solution);
+        flippedCount = 0;
+        touchedCount = 0;
+    }
+
+    public void loadValid(Solution source, double sourceLength) {
+        solution.copyFrom(source);
+        Arrays.fill(turnusValid, true);
+        invalidTurnusCount = 0;
+        length = sourceLength;
+        flippedCount = 0;
+        touchedCount = 0;
+    }
+
+    public void flip(int segment) {
+        beginMove();
+        applyFlip(segment);
+        reevaluateTouched();
+    }
+
+    public void flip(int[] segments, int count) {
+        beginMove();
+        for (int i = 0; i < count; i++) {
+            applyFlip(segments[i]);
+        }
+        reevaluateTouched();
+    }
+
+    public void undo() {
+        for (int i = flippedCount - 1; i >= 0; i--) {
+            solution.flip(flippedSegments[i]);
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            turnusValid[touchedTurnusy[i]] = savedValid[i];
+        }
+        invalidTurnusCount = savedInvalidCount;
+        length = savedLength;
+        flippedCount = 0;
+        touchedCount = 0;
+    }
+
+    private void beginMove() {
+        flippedCount = 0;
+        touchedCount = 0;
+        savedInvalidCount = invalidTurnusCount;
+        savedLength = length;
+        if (++markEpoch == 0) {
+            Arrays.fill(turnusMark, 0);
+            markEpoch = 1;
+        }
+    }
+
+    private void applyFlip(int segment) {
+        solution.flip(segment);
+        length += solution.get(segment) ? distances[segment] : -distances[segment];
+        flippedSegments[flippedCount++] = segment;
+        for (int t : instance.getSegmentTurnusy(segment)) {
+            if (turnusMark[t] != markEpoch) {
+                turnusMark[t] = markEpoch;
+                savedValid[touchedCount] = turnusValid[t];
+                touchedTurnusy[touchedCount++] = t;
+            }
+        }
+    }
+
+    private void reevaluateTouched() {
+        for (int i = 0; i < touchedCount; i++) {
+            int t = touchedTurnusy[i];
+            boolean valid = instance.isTurnusValid(t, solution);
+            if (valid != turnusValid[t]) {
+                invalidTurnusCount += valid ? -1 : 1;
+                turnusValid[t] = valid;
+            }
+        }
+    }
+
+    public boolean isValid() {
+        return invalidTurnusCount == 0;
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    public Solution getSolution() {
+        return solution;
+    }
+
+    public ProblemInstance getInstance() {
+        return instance;
+    }
+}
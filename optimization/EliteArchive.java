@@ -0,0 +1,167 @@
+package optimization;
+
+import model.Solution;
+import java.util.*;
+
+public class EliteArchive {
+    private final int capacity;
+    private final int minHammingDistance;
+    private final Solution[] solutions;
+    private final double[] lengths;
+    private final Set<Solution> members = new HashSet<>();
+    private int size;
+
+    public EliteArchive(int capacity) {
+        this(capacity, 0);
+    }
+
+    public EliteArchive(int capacity, int minHammingDistance) {
+        this.capacity = Math.max(1, capacity);
+        this.minHammingDistance = minHammingDistance;
+        this.solutions = new Solution[this.capacity];
+        this.lengths = new double[this.capacity];
+    }
+
+    public synchronized boolean offer(Solution solution, double length) {
+        if (size == capacity && length >= lengths[0]) {
+            return false;
+        }
+        if (members.contains(solution)) {
+            return false;
+        }
+
+        // A candidate too close to some elites competes only with the worst of them.
+        if (minHammingDistance > 0) {
+            int worstClose = -1;
+            for (int i = 0; i < size; i++) {
+                if (solutions[i].hammingDistance(solution) < minHammingDistance
+                        && (worstClose < 0 || lengths[i] > lengths[worstClose])) {
+                    worstClose = i;
+                }
+            }
+            if (worstClose >= 0) {
+                if (length >= lengths[worstClose]) {
+                    return false;
+                }
+                replace(worstClose, solution, length);
+                return true;
+            }
+        }
+
+        if (size < capacity) {
+            solutions[size] = solution.copy();
+            lengths[size] = length;
+            members.add(solutions[size]);
+            siftUp(size++);
+        } else {
+            replace(0, solution, length);
+        }
+        return true;
+    }
+
+    private void replace(int index, Solution solution, double length) {
+        Solution slot = solutions[index];
+        members.remove(slot);
+        slot.copyFrom(solution);
+        members.add(slot);
+        lengths[index] = length;
+        siftDown(index);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (lengths[parent] >= lengths[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && lengths[left] > lengths[largest]) largest = left;
+            if (right < size && lengths[right] > lengths[largest]) largest = right;
+            if (largest == index) {
+                return;
+            }
+            swap(index, largest);
+            index = largest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Solution solution = solutions[i];
+        solutions[i] = solutions[j];
+        solutions[j] = solution;
+        double length = lengths[i];
+        lengths[i] = lengths[j];
+        lengths[j] = length;
+    }
+
+    // Restores a slot written in getSolution(i) order, which is already a valid heap.
+    synchronized void append(Solution solution, double length) {
+        solutions[size] = solution.copy();
+        lengths[size] = length;
+        members.add(solutions[size]);
+        size++;
+    }
+
+    public synchronized void clear() {
+        members.clear();
+        Arrays.fill(solutions, null);
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getMinHammingDistance() {
+        return minHammingDistance;
+    }
+
+    public synchronized Solution getSolution(int index) {
+        return solutions[index];
+    }
+
+    public synchronized double getLength(int index) {
+        return lengths[index];
+    }
+
+    public synchronized double getWorstLength() {
+        return size > 0 ? lengths[0] : Double.MAX_VALUE;
+    }
+
+    public synchronized double getBestLength() {
+        int best = bestIndex();
+        return best >= 0 ? lengths[best] : Double.MAX_VALUE;
+    }
+
+    public synchronized Solution getBestSolution() {
+        int best = bestIndex();
+        return best >= 0 ? solutions[best] : null;
+    }
+
+    private int bestIndex() {
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            if (best < 0 || lengths[i] < lengths[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public synchronized boolean contains(Solution solution) {
+        return members.contains(solution);
+    }
+}
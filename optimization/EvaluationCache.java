@@ -0,0 +1,218 @@
+package optimization;
+
+import model.Solution;
+import model.Turnus;
+import model.Usek;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+// Append-only store of tuning runs keyed by (fingerprint, seed, parameter vector). The fingerprint
+// covers the instance and the optimizer's other settings, and a run of ACOOptimizer is deterministic
+// in all of them, so a stored result stands in for re-running it. The header keeps the tuner seed
+// of the run that created the file, so a restarted tuner draws the same run seeds.
+public class EvaluationCache implements AutoCloseable {
+    private static final int MAGIC = 0x41434F45;   // "ACOE"
+    private static final int VERSION = 2;
+
+    public static class Entry {
+        private final double length;
+        private final double computationTime;
+        private final Solution solution;
+
+        Entry(double length, double computationTime, Solution solution) {
+            this.length = length;
+            this.computationTime = computationTime;
+            this.solution = solution;
+        }
+
+        public boolean isValid() { return solution != null; }
+        public double getLength() { return length; }
+        public double getComputationTime() { return computationTime; }
+        public Solution getSolution() { return solution; }
+    }
+
+    private final Path file;
+    private final String fingerprint;
+    private final long seed;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private DataOutputStream out;
+    private int hits;
+    private int misses;
+
+    // Loads the entries of this fingerprint; other entries stay in the file untouched. A record cut
+    // short by a crash is dropped by truncating the file after the last whole record. seed is only
+    // used for a new file; an existing file keeps the seed stored in its header.
+    public EvaluationCache(Path file, String fingerprint, long seed) throws IOException {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        long storedSeed = seed;
+        long validBytes = 0;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            try (CountingInput counter = new CountingInput(Files.newInputStream(file));
+                 DataInputStream in = new DataInputStream(counter)) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("not an evaluation cache: " + file);
+                }
+                int version = in.readInt();
+                if (version != VERSION) {
+                    throw new IOException("unsupported evaluation cache version " + version + ": " + file);
+                }
+                storedSeed = in.readLong();
+                validBytes = counter.count;
+                try {
+                    while (true) {
+                        String recordFingerprint = in.readUTF();
+                        String key = in.readUTF();
+                        double length = in.readDouble();
+                        double computationTime = in.readDouble();
+                        Solution solution = in.readBoolean() ? Solution.readFrom(in) : null;
+                        validBytes = counter.count;
+                        if (recordFingerprint.equals(fingerprint)) {
+                            entries.put(key, new Entry(length, computationTime, solution));
+                        }
+                    }
+                } catch (EOFException e) {
+                    // End of file or a partial last record
+                }
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                if (channel.size() > validBytes) {
+                    channel.truncate(validBytes);
+                }
+            }
+        }
+
+        this.seed = storedSeed;
+        boolean fresh = validBytes == 0;
+        out = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(file, StandardOpenOption.CREATE, fresh ? StandardOpenOption.TRUNCATE_EXISTING
+                                                                         : StandardOpenOption.APPEND)));
+        if (fresh) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.flush();
+        }
+    }
+
+    public synchronized Entry get(ACOParameters parameters, long seed) {
+        Entry entry = entries.get(key(parameters, seed));
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    // solution is null for a run that produced no valid wiring.
+    public synchronized void put(ACOParameters parameters, long seed, double length,
+                                 double computationTime, Solution solution) {
+        String key = key(parameters, seed);
+        Entry entry = new Entry(length, computationTime, solution != null ? solution.copy() : null);
+        entries.put(key, entry);
+        try {
+            out.writeUTF(fingerprint);
+            out.writeUTF(key);
+            out.writeDouble(length);
+            out.writeDouble(computationTime);
+            out.writeBoolean(entry.solution != null);
+            if (entry.solution != null) {
+                entry.solution.writeTo(out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing evaluation cache: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    // Double.toString round-trips exactly and ignores the locale, unlike the %.4f of the CSV logs.
+    private static String key(ACOParameters p, long seed) {
+        return seed + "|" + p.getAlpha() + "|" + p.getBeta() + "|" + p.getRho() + "|" + p.getQ() + "|"
+               + p.getTau0() + "|" + p.getP0() + "|" + p.getNumAnts() + "|" + p.getMaxIterations();
+    }
+
+    // SHA-256 over every parsed usek, every turnus sequence, the battery model and the optimizer
+    // settings (ACOOptimizer.describeSettings), so a changed input file, battery setting, optimizer
+    // configuration or algorithm version never picks up stale results.
+    public static String fingerprint(List<Usek> useky, List<Turnus> turnusy,
+                                     double maxBatteryCapacity, double minBatteryLevel,
+                                     double consumptionRate, double chargingRate, String settings) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(buffer);
+            data.writeInt(useky.size());
+            for (Usek usek : useky) {
+                data.writeInt(usek.getId());
+                data.writeInt(usek.getNode1Id());
+                data.writeInt(usek.getNode2Id());
+                data.writeDouble(usek.getDistance());
+            }
+            data.writeInt(turnusy.size());
+            for (Turnus turnus : turnusy) {
+                List<Integer> indices = turnus.getUskyIndices();
+                data.writeInt(indices.size());
+                for (int index : indices) {
+                    data.writeInt(index);
+                }
+            }
+            data.writeDouble(maxBatteryCapacity);
+            data.writeDouble(minBatteryLevel);
+            data.writeDouble(consumptionRate);
+            data.writeDouble(chargingRate);
+            data.writeUTF(settings);
+            data.flush();
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(buffer.toByteArray())) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("cannot fingerprint instance: " + e.getMessage(), e);
+        }
+    }
+
+    public Path getFile() { return file; }
+    public String getFingerprint() { return fingerprint; }
+    public long getSeed() { return seed; }
+    public synchronized int size() { return entries.size(); }
+    public synchronized int getHits() { return hits; }
+    public synchronized int getMisses() { return misses; }
+
+    private static class CountingInput extends FilterInputStream {
+        long count;
+
+        CountingInput(InputStream in) {
+            super(new BufferedInputStream(in));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
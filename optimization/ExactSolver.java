@@ -0,0 +1,65 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.Solution;
+import java.util.stream.IntStream;
+
+public class ExactSolver {
+    private final ProblemInstance instance;
+    private final int[] order;
+    private final Solution current;
+    private Solution bestSolution;
+    private double bestLength;
+
+    public ExactSolver(ProblemInstance instance) {
+        this.instance = instance;
+        int segmentCount = instance.getSegmentCount();
+        this.order = IntStream.range(0, segmentCount).boxed()
+            .sorted((a, b) -> Double.compare(instance.getDistance(b), instance.getDistance(a)))
+            .mapToInt(Integer::intValue).toArray();
+        this.current = Solution.allWired(segmentCount);
+    }
+
+    // Branch and bound over segments, longest first. Undecided segments stay wired, so a branch
+    // is dropped as soon as unwiring a segment breaks one of its turnusy (wiring more never helps
+    // an infeasible turnus); the wired length decided so far bounds the rest.
+    public Solution solve() {
+        current.setAll(true);
+        bestSolution = null;
+        bestLength = Double.MAX_VALUE;
+        if (instance.isValid(current)) {
+            search(0, 0);
+        }
+        return bestSolution;
+    }
+
+    private void search(int depth, double wiredLength) {
+        if (wiredLength >= bestLength) {
+            return;
+        }
+        if (depth == order.length) {
+            bestLength = wiredLength;
+            bestSolution = current.copy();
+            return;
+        }
+
+        int segment = order[depth];
+        current.set(segment, false);
+        if (turnusyValid(segment)) {
+            search(depth + 1, wiredLength);
+        }
+        current.set(segment, true);
+        search(depth + 1, wiredLength + instance.getDistance(segment));
+    }
+
+    private boolean turnusyValid(int segment) {
+        for (int t : instance.getSegmentTurnusy(segment)) {
+            if (!instance.isTurnusValid(t, current)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public double getBestLength() { return bestLength; }
+}
@@ -0,0 +1,96 @@
+package optimization;
+
+import model.Solution;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class FeasibilityCache {
+    private static final long HASH_SEED_HIGH = 0x243F6A8885A308D3L;
+    private static final long HASH_SEED_LOW = 0x13198A2E03707344L;
+    private static final int BYTES_PER_ENTRY = 96;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Double> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Key {
+        final long high;
+        final long low;
+
+        Key(Solution solution) {
+            this.high = solution.hash64(HASH_SEED_HIGH);
+            this.low = solution.hash64(HASH_SEED_LOW);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (high ^ (high >>> 32));
+        }
+    }
+
+    public FeasibilityCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+                return size() > FeasibilityCache.this.capacity;
+            }
+        };
+    }
+
+    public static FeasibilityCache ofBytes(long bytes) {
+        return new FeasibilityCache((int) Math.min(Integer.MAX_VALUE, bytes / BYTES_PER_ENTRY));
+    }
+
+    // Returns the cached length, Double.NaN for a cached infeasible solution, or null on a miss.
+    public Double lookup(Solution solution) {
+        Key key = new Key(solution);
+        Double length;
+        synchronized (entries) {
+            length = entries.get(key);
+        }
+        if (length == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return length;
+    }
+
+    public void store(Solution solution, boolean valid, double length) {
+        Key key = new Key(solution);
+        synchronized (entries) {
+            entries.put(key, valid ? length : Double.NaN);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getCapacity() { return capacity; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total > 0 ? getHits() / (double) total : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FeasibilityCache{entries=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%}",
+            size(), capacity, getHits(), getMisses(), getHitRate() * 100);
+    }
+}
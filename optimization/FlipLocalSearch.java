@@ -0,0 +1,37 @@
+package optimization;
+
+import model.Solution;
+import java.util.SplittableRandom;
+
+public class FlipLocalSearch implements LocalSearch {
+
+    @Override
+    public boolean improve(DeltaEvaluator evaluator, SplittableRandom random) {
+        Solution solution = evaluator.getSolution();
+        int segmentCount = solution.size();
+        if (segmentCount == 0) {
+            return false;
+        }
+        boolean improved = false;
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+            int start = random.nextInt(segmentCount);
+            for (int k = 0; k < segmentCount; k++) {
+                int segment = start + k < segmentCount ? start + k : start + k - segmentCount;
+                if (!solution.get(segment)) {
+                    continue;
+                }
+                evaluator.flip(segment);
+                if (evaluator.isValid()) {
+                    changed = true;
+                    improved = true;
+                } else {
+                    evaluator.undo();
+                }
+            }
+        }
+        return improved;
+    }
+}
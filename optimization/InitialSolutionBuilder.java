@@ -0,0 +1,100 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.Solution;
+import java.util.SplittableRandom;
+
+public class InitialSolutionBuilder {
+    private static final long PRUNE_SEED = 0x5DEECE66DL;
+
+    // Union of the cheapest wiring of every turnus on its own, then redundant chargers dropped.
+    public static Solution fromTurnusOptima(ProblemInstance instance, LowerBoundCalculator calculator) {
+        Solution solution = calculator.getTurnusOptima();
+        new BatteryAwareBuilder(instance).repair(solution);
+        prune(instance, solution);
+        return solution;
+    }
+
+    // Walks every turnus and, whenever the bus would run out, wires the longest unwired segment
+    // since the last charge, since that one recharges the most.
+    public static Solution greedy(ProblemInstance instance) {
+        Solution solution = new Solution(instance.getSegmentCount());
+        double maxBattery = instance.getMaxBatteryCapacity();
+        double floor = instance.getBatteryFloor();
+        double consumptionRate = instance.getConsumptionRate();
+        double chargingRate = instance.getChargingRate();
+        double maxDistance = instance.getMaxDistanceWithoutCharging();
+
+        for (int t = 0; t < instance.getTurnusCount(); t++) {
+            int[] sequence = instance.getTurnusSegments(t);
+            double battery = maxBattery;
+            double distance = 0;
+            int windowStart = 0;
+
+            for (int i = 0; i < sequence.length; i++) {
+                double length = instance.getDistance(sequence[i]);
+                double predictedBattery = battery - length * consumptionRate;
+                boolean empty = predictedBattery < floor || predictedBattery <= 0;
+                boolean tooFar = !solution.get(sequence[i]) && distance + length > maxDistance;
+
+                if (empty || tooFar) {
+                    int longest = -1;
+                    int last = empty ? i - 1 : i;
+                    for (int q = windowStart; q <= last; q++) {
+                        if (!solution.get(sequence[q])
+                                && (longest < 0 || instance.getDistance(sequence[q]) > instance.getDistance(sequence[longest]))) {
+                            longest = q;
+                        }
+                    }
+                    if (longest >= 0) {
+                        solution.set(sequence[longest], true);
+                        battery = replay(instance, sequence, solution, longest + 1);
+                        distance = 0;
+                        windowStart = longest + 1;
+                        i = longest;
+                        continue;
+                    }
+                    if (empty) {
+                        break;
+                    }
+                }
+
+                if (solution.get(sequence[i])) {
+                    battery = Math.min(maxBattery, battery + length * chargingRate);
+                    distance = 0;
+                    windowStart = i + 1;
+                } else {
+                    battery = predictedBattery;
+                    distance += length;
+                }
+            }
+        }
+
+        new BatteryAwareBuilder(instance).repair(solution);
+        prune(instance, solution);
+        return solution;
+    }
+
+    private static double replay(ProblemInstance instance, int[] sequence, Solution solution, int end) {
+        double battery = instance.getMaxBatteryCapacity();
+        for (int i = 0; i < end; i++) {
+            double length = instance.getDistance(sequence[i]);
+            if (solution.get(sequence[i])) {
+                battery = Math.min(instance.getMaxBatteryCapacity(), battery + length * instance.getChargingRate());
+            } else {
+                battery -= length * instance.getConsumptionRate();
+            }
+        }
+        return battery;
+    }
+
+    private static void prune(ProblemInstance instance, Solution solution) {
+        if (!instance.isValid(solution)) {
+            return;
+        }
+        DeltaEvaluator evaluator = new DeltaEvaluator(instance);
+        evaluator.loadValid(solution, instance.length(solution));
+        new FlipLocalSearch().improve(evaluator, new SplittableRandom(PRUNE_SEED));
+        solution.copyFrom(evaluator.getSolution());
+    }
+}
@@ -0,0 +1,98 @@
+package optimization;
+
+import model.Solution;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Times the pheromone kernels on a synthetic instance, scalar against whatever PheromoneKernels.create
+// selects. To measure the vector kernels, compile the optional source set onto the main classes and
+// run with the incubator module, from the repository root:
+//   javac -encoding UTF-8 -d out $(find model util optimization -name '*.java')
+//   javac --add-modules jdk.incubator.vector -cp out -d out optional-vector/optimization/*.java
+//   java --add-modules jdk.incubator.vector -cp out optimization.KernelBenchmark
+// Without the module, or with -Daco.kernels=scalar, both columns time the scalar kernels.
+// Only the generation deposit is vectorised: evaporation and masked length measured no faster
+// vectorised than the scalar loops, so VectorPheromoneKernels inherits them from ScalarPheromoneKernels.
+public class KernelBenchmark {
+    private static final int SEGMENTS = 100_000;
+    private static final int ANTS = 50;
+    private static final int ELITES = 10;
+    private static final int ROUNDS = 200;
+    private static final double[] DENSITIES = {0.1, 0.5};
+
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(42);
+        double[] distances = new double[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            distances[i] = 50 + random.nextDouble() * 2000;
+        }
+        PheromoneKernels scalar = new ScalarPheromoneKernels();
+        PheromoneKernels vector = PheromoneKernels.create();
+        System.out.printf("Synthetic instance: %d segments, %d ants + %d elites, %d rounds\n",
+                        SEGMENTS, ANTS, ELITES, ROUNDS);
+        System.out.printf("Vector kernels: %s\n", vector.getClass().getSimpleName());
+
+        for (double density : DENSITIES) {
+            Solution[] solutions = new Solution[ANTS + ELITES];
+            double[] deposits = new double[ANTS + ELITES];
+            for (int k = 0; k < solutions.length; k++) {
+                solutions[k] = new Solution(SEGMENTS);
+                for (int i = 0; i < SEGMENTS; i++) {
+                    solutions[k].set(i, random.nextDouble() < density);
+                }
+                deposits[k] = 100.0 / solutions[k].length(distances);
+            }
+            System.out.printf("\nWired share %.0f%%\n", density * 100);
+            compare(scalar, vector, distances, solutions, deposits);
+        }
+    }
+
+    private static void compare(PheromoneKernels scalar, PheromoneKernels vector, double[] distances,
+                                Solution[] solutions, double[] deposits) {
+        for (int warmup = 0; warmup < 3; warmup++) {
+            run(scalar, distances, solutions, deposits, false);
+            run(vector, distances, solutions, deposits, false);
+        }
+        double[] scalarTimes = run(scalar, distances, solutions, deposits, true);
+        double[] vectorTimes = run(vector, distances, solutions, deposits, true);
+
+        String[] names = {"evaporation", "generation deposit", "masked length"};
+        for (int k = 0; k < names.length; k++) {
+            System.out.printf("%-20s scalar %8.3f ms  vector %8.3f ms  speedup %.2fx\n",
+                            names[k], scalarTimes[k], vectorTimes[k], scalarTimes[k] / vectorTimes[k]);
+        }
+    }
+
+    private static double[] run(PheromoneKernels kernels, double[] distances, Solution[] solutions,
+                                double[] deposits, boolean report) {
+        double[] pheromones = new double[2 * SEGMENTS];
+        Arrays.fill(pheromones, 1.0);
+        double checksum = 0;
+
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            kernels.scale(pheromones, 0, pheromones.length, 0.999);
+        }
+        long evaporation = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            kernels.deposit(pheromones, SEGMENTS, solutions, deposits, solutions.length);
+        }
+        long deposit = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (Solution solution : solutions) {
+                checksum += kernels.maskedLength(distances, solution);
+            }
+        }
+        long length = System.nanoTime() - start;
+
+        if (report) {
+            System.out.printf("%s checksum %.6e, pheromone[0] %.6e\n",
+                            kernels.getClass().getSimpleName(), checksum, pheromones[0]);
+        }
+        return new double[] {evaporation / 1e6 / ROUNDS, deposit / 1e6 / ROUNDS, length / 1e6 / ROUNDS};
+    }
+}
@@ -0,0 +1,8 @@
+package optimization;
+
+import java.util.SplittableRandom;
+
+public interface LocalSearch {
+    // Improves the solution loaded in the evaluator in place; returns true if it got shorter.
+    boolean improve(DeltaEvaluator evaluator, SplittableRandom random);
+}
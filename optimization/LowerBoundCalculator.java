@@ -0,0 +1,209 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.Solution;
+import java.util.Arrays;
+
+public class LowerBoundCalculator {
+    private static final int MAX_LABELS = 2000;
+    private static final int GRID = 256;
+
+    private final ProblemInstance instance;
+    private final double[] distances;
+    private final int[] occurrences;
+    private double[] turnusBounds;
+    private Solution turnusOptima;
+    private double maxTurnusBound;
+    private double sharedBound;
+
+    private static final class Layer {
+        double[] cost = new double[16];
+        double[] battery = new double[16];
+        double[] distance = new double[16];
+        int[] parent = new int[16];
+        boolean[] wired = new boolean[16];
+        int size;
+
+        void add(double c, double b, double d, int p, boolean w) {
+            if (size == cost.length) {
+                int capacity = size * 2;
+                cost = Arrays.copyOf(cost, capacity);
+                battery = Arrays.copyOf(battery, capacity);
+                distance = Arrays.copyOf(distance, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                wired = Arrays.copyOf(wired, capacity);
+            }
+            cost[size] = c;
+            battery[size] = b;
+            distance[size] = d;
+            parent[size] = p;
+            wired[size] = w;
+            size++;
+        }
+    }
+
+    public LowerBoundCalculator(ProblemInstance instance) {
+        this.instance = instance;
+        this.distances = instance.getDistances();
+        this.occurrences = new int[instance.getSegmentCount()];
+    }
+
+    // The best single turnus bounds the instance, and so does the sum over turnusy when every
+    // segment's length is split evenly over all places it is traversed.
+    public synchronized double compute() {
+        if (turnusBounds != null) {
+            return getLowerBound();
+        }
+        int turnusCount = instance.getTurnusCount();
+        double[] bounds = new double[turnusCount];
+        double[] sharedCost = new double[instance.getSegmentCount()];
+        for (int s = 0; s < sharedCost.length; s++) {
+            int usage = instance.getSegmentUsage(s);
+            sharedCost[s] = usage > 0 ? distances[s] / usage : 0;
+        }
+
+        maxTurnusBound = 0;
+        sharedBound = 0;
+        Solution optima = new Solution(instance.getSegmentCount());
+        for (int t = 0; t < turnusCount; t++) {
+            bounds[t] = solveTurnus(t, null, optima);
+            maxTurnusBound = Math.max(maxTurnusBound, bounds[t]);
+            sharedBound += solveTurnus(t, sharedCost, null);
+        }
+        turnusBounds = bounds;
+        turnusOptima = optima;
+        return getLowerBound();
+    }
+
+    // Union of the cheapest wiring of every turnus, recorded by compute() while it solves them.
+    public synchronized Solution getTurnusOptima() {
+        compute();
+        return turnusOptima.copy();
+    }
+
+    // Cheapest wiring that makes this turnus valid on its own, written into the given solution.
+    public synchronized double solveTurnus(int turnus, Solution wiring) {
+        return solveTurnus(turnus, null, wiring);
+    }
+
+    private double solveTurnus(int turnus, double[] segmentCost, Solution wiring) {
+        int[] sequence = instance.getTurnusSegments(turnus);
+        if (segmentCost == null) {
+            for (int segment : sequence) {
+                occurrences[segment]++;
+            }
+        }
+
+        double maxBattery = instance.getMaxBatteryCapacity();
+        double floor = instance.getBatteryFloor();
+        double consumptionRate = instance.getConsumptionRate();
+        double chargingRate = instance.getChargingRate();
+        double maxDistance = instance.getMaxDistanceWithoutCharging();
+
+        Layer[] layers = new Layer[sequence.length + 1];
+        layers[0] = new Layer();
+        layers[0].add(0, maxBattery, 0, -1, false);
+
+        for (int i = 0; i < sequence.length; i++) {
+            int segment = sequence[i];
+            double length = distances[segment];
+            double cost = segmentCost != null ? segmentCost[segment] : length / occurrences[segment];
+            Layer current = layers[i];
+            Layer next = new Layer();
+
+            for (int l = 0; l < current.size; l++) {
+                double predictedBattery = current.battery[l] - length * consumptionRate;
+                if (predictedBattery < floor || predictedBattery <= 0) {
+                    continue;
+                }
+                if (current.distance[l] + length <= maxDistance) {
+                    next.add(current.cost[l], predictedBattery, current.distance[l] + length, l, false);
+                }
+                next.add(current.cost[l] + cost,
+                         Math.min(maxBattery, current.battery[l] + length * chargingRate), 0, l, true);
+            }
+            layers[i + 1] = prune(next, maxBattery, floor, maxDistance);
+        }
+
+        if (segmentCost == null) {
+            for (int segment : sequence) {
+                occurrences[segment] = 0;
+            }
+        }
+
+        Layer last = layers[sequence.length];
+        if (last.size == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int best = 0;
+        for (int l = 1; l < last.size; l++) {
+            if (last.cost[l] < last.cost[best]) {
+                best = l;
+            }
+        }
+        if (wiring != null) {
+            for (int i = sequence.length, l = best; i > 0; l = layers[i].parent[l], i--) {
+                if (layers[i].wired[l]) {
+                    wiring.set(sequence[i - 1], true);
+                }
+            }
+        }
+        return last.cost[best];
+    }
+
+    // Keeps the Pareto front of (low cost, high battery, low distance). Oversized fronts are
+    // coarsened optimistically (battery rounded up, distance down), which keeps the bound valid.
+    private Layer prune(Layer layer, double maxBattery, double floor, double maxDistance) {
+        Layer front = paretoFront(layer);
+        if (front.size > MAX_LABELS) {
+            double batteryStep = (maxBattery - floor) / GRID;
+            double distanceStep = maxDistance / GRID;
+            for (int l = 0; l < front.size; l++) {
+                front.battery[l] = Math.min(maxBattery, Math.ceil(front.battery[l] / batteryStep) * batteryStep);
+                front.distance[l] = Math.floor(front.distance[l] / distanceStep) * distanceStep;
+            }
+            front = paretoFront(front);
+        }
+        return front;
+    }
+
+    private Layer paretoFront(Layer layer) {
+        Integer[] order = new Integer[layer.size];
+        for (int l = 0; l < order.length; l++) {
+            order[l] = l;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = Double.compare(layer.cost[a], layer.cost[b]);
+            if (c != 0) return c;
+            c = Double.compare(layer.battery[b], layer.battery[a]);
+            if (c != 0) return c;
+            return Double.compare(layer.distance[a], layer.distance[b]);
+        });
+
+        Layer front = new Layer();
+        for (int l : order) {
+            boolean dominated = false;
+            for (int k = 0; k < front.size && !dominated; k++) {
+                dominated = front.battery[k] >= layer.battery[l] && front.distance[k] <= layer.distance[l];
+            }
+            if (!dominated) {
+                front.add(layer.cost[l], layer.battery[l], layer.distance[l], layer.parent[l], layer.wired[l]);
+            }
+        }
+        return front;
+    }
+
+    public double getLowerBound() { return Math.max(maxTurnusBound, sharedBound); }
+    public double getMaxTurnusBound() { return maxTurnusBound; }
+    public double getSharedBound() { return sharedBound; }
+    public double getTurnusBound(int turnus) { return turnusBounds[turnus]; }
+
+    // NaN when there is no finite bound (some turnus is infeasible even fully wired), so that no
+    // gap-based stop check can pass.
+    public static double gap(double length, double lowerBound) {
+        if (!Double.isFinite(lowerBound)) {
+            return Double.NaN;
+        }
+        return length > 0 ? Math.max(0, (length - lowerBound) / length) : 0;
+    }
+}
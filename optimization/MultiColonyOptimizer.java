@@ -0,0 +1,189 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.Solution;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class MultiColonyOptimizer {
+    public enum Migration {
+        BEST_SOLUTION,
+        PHEROMONE_BLEND
+    }
+
+    private int MIGRATION_INTERVAL = 50;   // Iterations between migrations (M)
+    private double BLEND_WEIGHT = 0.1;     // Share of the neighbour's pheromones when blending
+    private Migration migration = Migration.BEST_SOLUTION;
+    private int CHECKPOINT_EPOCHS = 2;     // Epochs between checkpoints
+    private Path checkpointFile;
+
+    private final ProblemInstance instance;
+    private final List<ACOOptimizer> colonies = new ArrayList<>();
+    private Solution bestSolution;
+    private double bestSolutionLength = Double.MAX_VALUE;
+    private int bestColony = -1;
+
+    public MultiColonyOptimizer(ProblemInstance instance, int colonyCount) {
+        this.instance = instance;
+        long baseSeed = System.nanoTime();
+        for (int i = 0; i < colonyCount; i++) {
+            ACOOptimizer colony = new ACOOptimizer(instance);
+            colony.setSeed(baseSeed + i);
+            colonies.add(colony);
+        }
+    }
+
+    public Solution optimize() {
+        for (ACOOptimizer colony : colonies) {
+            colony.startRun();
+        }
+        return runEpochs();
+    }
+
+    // Continues the run saved in the checkpoint file; each colony needs the settings that
+    // ACOOptimizer.restoreCheckpoint leaves to the caller.
+    public Solution resume(Path file) throws IOException {
+        CheckpointFile.read(file, in -> {
+            if (in.readInt() != colonies.size()) {
+                throw new IOException("checkpoint was written with a different number of colonies");
+            }
+            for (ACOOptimizer colony : colonies) {
+                colony.readState(in);
+            }
+        });
+        return runEpochs();
+    }
+
+    public void saveCheckpoint(Path file) throws IOException {
+        CheckpointFile.write(file, out -> {
+            out.writeInt(colonies.size());
+            for (ACOOptimizer colony : colonies) {
+                colony.writeState(out);
+            }
+        });
+    }
+
+    private Solution runEpochs() {
+        ExecutorService executor = Executors.newFixedThreadPool(colonies.size());
+        int epochs = 0;
+        try {
+            List<Callable<Void>> epoch = new ArrayList<>();
+            for (ACOOptimizer colony : colonies) {
+                epoch.add(() -> {
+                    colony.runIterations(MIGRATION_INTERVAL);
+                    return null;
+                });
+            }
+
+            while (!allFinished()) {
+                for (Future<Void> future : executor.invokeAll(epoch)) {
+                    future.get();
+                }
+                if (anyStoppedEarly()) {
+                    for (ACOOptimizer colony : colonies) {
+                        colony.cancel();
+                    }
+                } else if (!allFinished()) {
+                    migrate();
+                    if (checkpointFile != null && ++epochs % CHECKPOINT_EPOCHS == 0) {
+                        try {
+                            saveCheckpoint(checkpointFile);
+                        } catch (IOException e) {
+                            System.err.println("Error writing checkpoint: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("colony failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        bestSolution = null;
+        bestSolutionLength = Double.MAX_VALUE;
+        bestColony = -1;
+        for (int i = 0; i < colonies.size(); i++) {
+            Solution solution = colonies.get(i).finishRun();
+            double length = instance.length(solution);
+            if (instance.isValid(solution) && length < bestSolutionLength) {
+                bestSolution = solution;
+                bestSolutionLength = length;
+                bestColony = i;
+            }
+        }
+        return bestSolution != null ? bestSolution : Solution.allWired(instance.getSegmentCount());
+    }
+
+    private boolean allFinished() {
+        for (ACOOptimizer colony : colonies) {
+            if (!colony.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean anyStoppedEarly() {
+        for (ACOOptimizer colony : colonies) {
+            if (colony.isStoppedEarly()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void migrate() {
+        int count = colonies.size();
+        if (count < 2) {
+            return;
+        }
+
+        if (migration == Migration.PHEROMONE_BLEND) {
+            double[][] snapshots = new double[count][];
+            for (int i = 0; i < count; i++) {
+                snapshots[i] = colonies.get(i).copyPheromones();
+            }
+            for (int i = 0; i < count; i++) {
+                colonies.get(i).blendPheromones(snapshots[(i + count - 1) % count], BLEND_WEIGHT);
+            }
+        } else {
+            Solution[] migrants = new Solution[count];
+            double[] lengths = new double[count];
+            for (int i = 0; i < count; i++) {
+                Solution best = colonies.get(i).getBestSolution();
+                migrants[i] = best != null ? best.copy() : null;
+                lengths[i] = colonies.get(i).getBestSolutionLength();
+            }
+            for (int i = 0; i < count; i++) {
+                int source = (i + count - 1) % count;
+                if (migrants[source] != null) {
+                    colonies.get(i).acceptSolution(migrants[source], lengths[source]);
+                }
+            }
+        }
+    }
+
+    public int getColonyCount() { return colonies.size(); }
+    public ACOOptimizer getColony(int index) { return colonies.get(index); }
+    public List<ACOOptimizer> getColonies() { return Collections.unmodifiableList(colonies); }
+    public double getBestSolutionLength() { return bestSolutionLength; }
+    public int getBestColony() { return bestColony; }
+
+    public void setMigrationInterval(int value) { this.MIGRATION_INTERVAL = Math.max(1, value); }
+    public void setBlendWeight(double value) { this.BLEND_WEIGHT = value; }
+    public void setMigration(Migration migration) { this.migration = migration; }
+    public void setCheckpoint(Path file, int epochs) {
+        this.checkpointFile = file;
+        this.CHECKPOINT_EPOCHS = Math.max(1, epochs);
+    }
+
+    public int getMigrationInterval() { return MIGRATION_INTERVAL; }
+    public double getBlendWeight() { return BLEND_WEIGHT; }
+    public Migration getMigration() { return migration; }
+    public Path getCheckpointFile() { return checkpointFile; }
+}
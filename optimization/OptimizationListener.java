@@ -0,0 +1,6 @@
+package optimization;
+
+public interface OptimizationListener {
+    void iterationCompleted(int iteration, double bestLength, double iterationBestLength,
+                            int feasibleAnts, long elapsedNanos);
+}
@@ -0,0 +1,58 @@
+package optimization;
+
+import java.util.SplittableRandom;
+
+// Maps points of the unit cube [0, 1]^DIMENSIONS onto ACO parameter settings. Ranges follow the
+// one-at-a-time grids of ACOTuner; parameters spanning orders of magnitude are searched on a log scale.
+public class ParameterSpace {
+    public static final int DIMENSIONS = 8;
+
+    private static final String[] NAMES = {"ALPHA", "BETA", "RHO", "Q", "TAU_0", "P_0", "NUM_ANTS", "MAX_ITERATIONS"};
+    private static final double[] LOWER = {0.001, 0.5, 0.1, 10.0, 0.001, 0.01, 30, 500};
+    private static final double[] UPPER = {1.5, 10.0, 0.9, 1500.0, 1.0, 0.3, 150, 3000};
+    private static final boolean[] LOG_SCALE = {true, true, false, true, true, true, true, true};
+
+    public static ACOParameters decode(double[] point) {
+        ACOParameters parameters = new ACOParameters();
+        parameters.setAlpha(value(0, point[0]));
+        parameters.setBeta(value(1, point[1]));
+        parameters.setRho(value(2, point[2]));
+        parameters.setQ(value(3, point[3]));
+        parameters.setTau0(value(4, point[4]));
+        parameters.setP0(value(5, point[5]));
+        parameters.setNumAnts((int) Math.round(value(6, point[6])));
+        parameters.setMaxIterations((int) Math.round(value(7, point[7])));
+        return parameters;
+    }
+
+    private static double value(int dimension, double unit) {
+        double u = Math.max(0, Math.min(1, unit));
+        if (LOG_SCALE[dimension]) {
+            return Math.exp(Math.log(LOWER[dimension]) + u * (Math.log(UPPER[dimension]) - Math.log(LOWER[dimension])));
+        }
+        return LOWER[dimension] + u * (UPPER[dimension] - LOWER[dimension]);
+    }
+
+    // One point per stratum in every dimension, strata paired up by independent permutations.
+    public static double[][] latinHypercube(int samples, SplittableRandom random) {
+        double[][] points = new double[samples][DIMENSIONS];
+        int[] strata = new int[samples];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            for (int i = 0; i < samples; i++) {
+                strata[i] = i;
+            }
+            for (int i = samples - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = strata[i];
+                strata[i] = strata[j];
+                strata[j] = swap;
+            }
+            for (int i = 0; i < samples; i++) {
+                points[i][d] = (strata[i] + random.nextDouble()) / samples;
+            }
+        }
+        return points;
+    }
+
+    public static String getName(int dimension) { return NAMES[dimension]; }
+}
@@ -0,0 +1,56 @@
+package optimization;
+
+import model.Solution;
+import java.lang.reflect.Constructor;
+
+public interface PheromoneKernels {
+    int LANES = 4;
+
+    // values[from, to) *= factor
+    void scale(double[] values, int from, int to, double factor);
+
+    // Adds deposits[k] of every solution at once: segment i of solution k goes to
+    // pheromones[segmentCount + i] when wired and to pheromones[i] otherwise.
+    void deposit(double[] pheromones, int segmentCount, Solution[] solutions, double[] deposits, int count);
+
+    // Sum of distances of the wired segments, accumulated in LANES interleaved partial sums that
+    // are added up in order, so every implementation returns the same bits.
+    double maskedLength(double[] distances, Solution solution);
+
+    static PheromoneKernels create() {
+        if (Selection.VECTOR != null) {
+            try {
+                return Selection.VECTOR.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("vector kernels failed after a successful probe", e);
+            }
+        }
+        return new ScalarPheromoneKernels();
+    }
+
+    // Resolves the kernels once per JVM and reports the choice, however many optimizers are built.
+    final class Selection {
+        static final Constructor<? extends PheromoneKernels> VECTOR = resolve();
+
+        private static Constructor<? extends PheromoneKernels> resolve() {
+            if ("scalar".equals(System.getProperty("aco.kernels"))) {
+                System.out.println("Pheromone kernels: scalar (-Daco.kernels=scalar)");
+                return null;
+            }
+            try {
+                Constructor<? extends PheromoneKernels> constructor =
+                    Class.forName("optimization.VectorPheromoneKernels")
+                        .asSubclass(PheromoneKernels.class).getDeclaredConstructor();
+                constructor.newInstance();
+                System.out.println("Pheromone kernels: vector");
+                return constructor;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Optional vector kernels not compiled in, or jdk.incubator.vector not added
+                System.out.println("Pheromone kernels: scalar (vector kernels unavailable: " + e + ")");
+                return null;
+            }
+        }
+
+        private Selection() {}
+    }
+}
@@ -0,0 +1,57 @@
+package optimization;
+
+import model.Solution;
+import java.util.SplittableRandom;
+
+public class RandomChunkLocalSearch implements LocalSearch {
+    private int maxRadius = 5;
+    private int maxIterationsWithoutImprovement = 100;
+    private double minImprovement = 0.01;
+
+    @Override
+    public boolean improve(DeltaEvaluator evaluator, SplittableRandom random) {
+        Solution solution = evaluator.getSolution();
+        int segmentCount = solution.size();
+        double startLength = evaluator.getLength();
+        double bestLength = startLength;
+        int iterationsWithoutImprovement = 0;
+        int[] removed = new int[maxRadius];
+
+        while (iterationsWithoutImprovement < maxIterationsWithoutImprovement) {
+            boolean improved = false;
+
+            for (int i = 0; i < segmentCount - maxRadius; i += maxRadius) {
+                int removedCount = 0;
+
+                for (int r = 0; r < maxRadius; r++) {
+                    int idx = (i + r) % segmentCount;
+                    if (solution.get(idx) && random.nextDouble() < 0.5) {
+                        removed[removedCount++] = idx;
+                    }
+                }
+
+                if (removedCount > 0) {
+                    evaluator.flip(removed, removedCount);
+                    if (evaluator.isValid() && evaluator.getLength() < bestLength * (1 - minImprovement)) {
+                        bestLength = evaluator.getLength();
+                        improved = true;
+                    } else {
+                        evaluator.undo();
+                    }
+                }
+            }
+
+            if (improved) {
+                iterationsWithoutImprovement = 0;
+            } else {
+                iterationsWithoutImprovement++;
+            }
+        }
+
+        return bestLength < startLength;
+    }
+
+    public void setMaxRadius(int value) { this.maxRadius = Math.max(1, value); }
+    public void setMaxIterationsWithoutImprovement(int value) { this.maxIterationsWithoutImprovement = value; }
+    public void setMinImprovement(double value) { this.minImprovement = value; }
+}
@@ -0,0 +1,63 @@
+package optimization;
+
+import model.Solution;
+import java.util.Arrays;
+
+public class ScalarPheromoneKernels implements PheromoneKernels {
+    private double[] wiredSums = new double[0];
+    private double[] unwiredSums = new double[0];
+
+    @Override
+    public void scale(double[] values, int from, int to, double factor) {
+        for (int i = from; i < to; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    @Override
+    public void deposit(double[] pheromones, int segmentCount, Solution[] solutions, double[] deposits, int count) {
+        if (wiredSums.length < segmentCount) {
+            wiredSums = new double[segmentCount];
+            unwiredSums = new double[segmentCount];
+        }
+        Arrays.fill(wiredSums, 0, segmentCount, 0.0);
+        Arrays.fill(unwiredSums, 0, segmentCount, 0.0);
+
+        for (int k = 0; k < count; k++) {
+            Solution solution = solutions[k];
+            double deposit = deposits[k];
+            for (int i = 0; i < segmentCount; i++) {
+                if (solution.get(i)) {
+                    wiredSums[i] += deposit;
+                } else {
+                    unwiredSums[i] += deposit;
+                }
+            }
+        }
+        for (int i = 0; i < segmentCount; i++) {
+            pheromones[i] += unwiredSums[i];
+            pheromones[segmentCount + i] += wiredSums[i];
+        }
+    }
+
+    // One local accumulator per lane, so the per-ant hot path allocates nothing and is safe to
+    // call from several ant threads at once.
+    @Override
+    public double maskedLength(double[] distances, Solution solution) {
+        double lane0 = 0, lane1 = 0, lane2 = 0, lane3 = 0;
+        for (int w = 0; w < solution.wordCount(); w++) {
+            long word = solution.getWord(w);
+            while (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                switch (i & (LANES - 1)) {
+                    case 0: lane0 += distances[i]; break;
+                    case 1: lane1 += distances[i]; break;
+                    case 2: lane2 += distances[i]; break;
+                    default: lane3 += distances[i]; break;
+                }
+                word &= word - 1;
+            }
+        }
+        return lane0 + lane1 + lane2 + lane3;
+    }
+}
@@ -0,0 +1,81 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.Solution;
+import java.util.SplittableRandom;
+
+public class SwapLocalSearch implements LocalSearch {
+    private int maxCandidates = 32;
+
+    @Override
+    public boolean improve(DeltaEvaluator evaluator, SplittableRandom random) {
+        Solution solution = evaluator.getSolution();
+        int segmentCount = solution.size();
+        if (segmentCount == 0) {
+            return false;
+        }
+        int[] move = new int[2];
+        boolean improved = false;
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+            int start = random.nextInt(segmentCount);
+            for (int k = 0; k < segmentCount; k++) {
+                int segment = start + k < segmentCount ? start + k : start + k - segmentCount;
+                if (!solution.get(segment)) {
+                    continue;
+                }
+                evaluator.flip(segment);
+                if (evaluator.isValid()) {
+                    changed = true;
+                    improved = true;
+                    continue;
+                }
+                evaluator.undo();
+                if (trySwap(evaluator, segment, move)) {
+                    changed = true;
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Moves the charge from a wired segment to a shorter unwired one in the same uncharged stretch.
+    private boolean trySwap(DeltaEvaluator evaluator, int segment, int[] move) {
+        ProblemInstance instance = evaluator.getInstance();
+        Solution solution = evaluator.getSolution();
+        double segmentLength = instance.getDistance(segment);
+        int[] occurrences = instance.getSegmentOccurrences(segment);
+        int tried = 0;
+        move[0] = segment;
+
+        for (int o = 0; o < occurrences.length && tried < maxCandidates; o += 2) {
+            int[] sequence = instance.getTurnusSegments(occurrences[o]);
+            int position = occurrences[o + 1];
+
+            for (int direction = -1; direction <= 1; direction += 2) {
+                for (int q = position + direction; q >= 0 && q < sequence.length && tried < maxCandidates; q += direction) {
+                    int candidate = sequence[q];
+                    if (solution.get(candidate)) {
+                        break;
+                    }
+                    if (candidate == segment || instance.getDistance(candidate) >= segmentLength) {
+                        continue;
+                    }
+                    tried++;
+                    move[1] = candidate;
+                    evaluator.flip(move, 2);
+                    if (evaluator.isValid()) {
+                        return true;
+                    }
+                    evaluator.undo();
+                }
+            }
+        }
+        return false;
+    }
+
+    public void setMaxCandidates(int value) { this.maxCandidates = Math.max(1, value); }
+}
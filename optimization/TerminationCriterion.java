@@ -0,0 +1,32 @@
+package optimization;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public interface TerminationCriterion {
+    boolean isSatisfied(ACOOptimizer optimizer);
+
+    static TerminationCriterion timeBudget(long millis) {
+        long budgetNanos = millis * 1_000_000L;
+        return optimizer -> optimizer.getElapsedNanos() >= budgetNanos;
+    }
+
+    static TerminationCriterion deadline(long epochMillis) {
+        return optimizer -> System.currentTimeMillis() >= epochMillis;
+    }
+
+    static TerminationCriterion targetLength(double target) {
+        return optimizer -> optimizer.getBestSolutionLength() <= target;
+    }
+
+    static TerminationCriterion optimalityGap(double lowerBound, double maxGap) {
+        return optimizer -> LowerBoundCalculator.gap(optimizer.getBestSolutionLength(), lowerBound) <= maxGap;
+    }
+
+    static TerminationCriterion stagnation(int iterations) {
+        return optimizer -> optimizer.getIterationsSinceImprovement() >= iterations;
+    }
+
+    static TerminationCriterion cancelled(AtomicBoolean flag) {
+        return optimizer -> flag.get();
+    }
+}
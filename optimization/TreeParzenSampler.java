@@ -0,0 +1,125 @@
+package optimization;
+
+import java.util.*;
+
+// Tree-structured Parzen estimator over the unit cube. Observations are split at the GAMMA
+// quantile of their scores; new points are drawn from the density of the good ones and the draw
+// maximising l(x) / g(x) is proposed. Dimensions are modelled independently.
+public class TreeParzenSampler {
+    private double GAMMA = 0.25;            // Share of observations treated as good
+    private int CANDIDATES = 24;            // Draws from l(x) scored per proposal
+    private double MIN_BANDWIDTH = 0.05;    // Lower bound of the kernel width in unit coordinates
+
+    private final int dimensions;
+    private final List<double[]> points = new ArrayList<>();
+    private final List<Double> scores = new ArrayList<>();
+
+    public TreeParzenSampler(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    // Lower scores are better.
+    public void observe(double[] point, double score) {
+        points.add(point.clone());
+        scores.add(score);
+    }
+
+    public double[] propose(SplittableRandom random) {
+        if (points.size() < 2) {
+            return uniform(random);
+        }
+        Integer[] order = new Integer[points.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(scores::get));
+        int goodCount = Math.max(1, (int) Math.ceil(GAMMA * order.length));
+        double[][] good = new double[goodCount][];
+        double[][] bad = new double[order.length - goodCount][];
+        for (int i = 0; i < order.length; i++) {
+            if (i < goodCount) {
+                good[i] = points.get(order[i]);
+            } else {
+                bad[i - goodCount] = points.get(order[i]);
+            }
+        }
+        double[] goodWidths = bandwidths(good);
+        double[] badWidths = bandwidths(bad);
+
+        double[] best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < CANDIDATES; c++) {
+            double[] candidate = new double[dimensions];
+            double score = 0;
+            for (int d = 0; d < dimensions; d++) {
+                int k = random.nextInt(goodCount + 1);
+                double x = k == goodCount ? random.nextDouble()
+                                          : good[k][d] + goodWidths[d] * gaussian(random);
+                candidate[d] = Math.max(0, Math.min(1, x));
+                score += Math.log(density(good, d, goodWidths[d], candidate[d]))
+                       - Math.log(density(bad, d, badWidths[d], candidate[d]));
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private double[] uniform(SplittableRandom random) {
+        double[] point = new double[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            point[d] = random.nextDouble();
+        }
+        return point;
+    }
+
+    // Scott's rule per dimension, floored so that a tight cluster still explores around itself.
+    private double[] bandwidths(double[][] set) {
+        double[] widths = new double[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            if (set.length < 2) {
+                widths[d] = 0.5;
+                continue;
+            }
+            double mean = 0;
+            for (double[] point : set) {
+                mean += point[d];
+            }
+            mean /= set.length;
+            double variance = 0;
+            for (double[] point : set) {
+                variance += (point[d] - mean) * (point[d] - mean);
+            }
+            double deviation = Math.sqrt(variance / (set.length - 1));
+            widths[d] = Math.max(MIN_BANDWIDTH, 1.06 * deviation * Math.pow(set.length, -0.2));
+        }
+        return widths;
+    }
+
+    // Gaussian kernels around the points mixed with a uniform prior of the same weight as one point.
+    private static double density(double[][] set, int d, double width, double x) {
+        double sum = 1.0;
+        for (double[] point : set) {
+            double z = (x - point[d]) / width;
+            sum += Math.exp(-0.5 * z * z) / (width * Math.sqrt(2 * Math.PI));
+        }
+        return sum / (set.length + 1);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    public int getObservationCount() { return points.size(); }
+
+    public void setGamma(double value) { this.GAMMA = value; }
+    public void setCandidates(int value) { this.CANDIDATES = Math.max(1, value); }
+    public void setMinBandwidth(double value) { this.MIN_BANDWIDTH = value; }
+
+    public double getGamma() { return GAMMA; }
+    public int getCandidates() { return CANDIDATES; }
+    public double getMinBandwidth() { return MIN_BANDWIDTH; }
+}
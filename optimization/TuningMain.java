@@ -5,8 +5,12 @@ import model.Usek;
 import util.CSVParser;
 import java.util.List;
 import java.io.File;
+import java.nio.file.Paths;
 
 public class TuningMain {
+    private static final double SEARCH_CPU_SECONDS = 8 * 3600;   // CPU budget of the joint search
+    private static final String EVALUATION_CACHE_FILE = "d:\\uniza\\bakalarka_1\\B2_evaluations.bin";
+
     public static void main(String[] args) {
         try {
             long startTime = System.currentTimeMillis();
@@ -31,14 +35,21 @@ public class TuningMain {
             List<Turnus> turnusy = CSVParser.parseTurnusy(turnusyPath);
             System.out.println("Loaded " + turnusy.size() + " turnusy");
 
-            ACOTuner tuner = new ACOTuner(useky, turnusy, 
-                40.0,  
-                10.0,  
-                0.0013,
-                0.0026 
-            );
+            try (ACOTuner tuner = new ACOTuner(useky, turnusy, 
+                    40.0,  
+                    10.0,  
+                    0.0013,
+                    0.0026 
+                )) {
+                tuner.setSelection(ACOTuner.Selection.SUCCESSIVE_HALVING);
+                tuner.setEvaluationCache(Paths.get(EVALUATION_CACHE_FILE));
 
-            tuner.tuneAll();
+                if (args.length > 0 && args[0].equals("grid")) {
+                    tuner.tuneAll();
+                } else {
+                    tuner.tuneJoint(SEARCH_CPU_SECONDS);
+                }
+            }
             System.out.println("\n\nRunning final validation experiments...\n");
             
             long endTime = System.currentTimeMillis();
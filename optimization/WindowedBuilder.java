@@ -0,0 +1,163 @@
+package optimization;
+
+import model.ProblemInstance;
+import model.ProblemReduction;
+import model.Solution;
+import java.util.SplittableRandom;
+
+public class WindowedBuilder {
+    private final ProblemInstance instance;
+    private final ProblemReduction reduction;
+    private final double[] distances;
+    private final int[][] windowReach;
+    private final BatteryAwareBuilder repairer;
+    private final int[] candidates;
+    private final double[] weights;
+
+    public WindowedBuilder(ProblemInstance instance, ProblemReduction reduction) {
+        this(instance, reduction, computeWindowReach(instance));
+    }
+
+    public WindowedBuilder(ProblemInstance instance, ProblemReduction reduction, int[][] windowReach) {
+        this.instance = instance;
+        this.reduction = reduction;
+        this.distances = instance.getDistances();
+        this.windowReach = windowReach;
+        this.repairer = new BatteryAwareBuilder(instance, reduction);
+        this.candidates = new int[instance.getMaxTurnusLength() + 1];
+        this.weights = new double[instance.getMaxTurnusLength() + 1];
+    }
+
+    // windowReach[t][p] is the first position of turnus t that a fully charged bus starting
+    // unwired at position p cannot pass; positions p..reach are the candidates of that window.
+    public static int[][] computeWindowReach(ProblemInstance instance) {
+        double maxBattery = instance.getMaxBatteryCapacity();
+        double floor = instance.getBatteryFloor();
+        double consumptionRate = instance.getConsumptionRate();
+        double maxDistance = Math.min(instance.getMaxDistanceWithoutCharging(),
+                                      (maxBattery - floor) / consumptionRate);
+
+        int[][] reach = new int[instance.getTurnusCount()][];
+        for (int t = 0; t < reach.length; t++) {
+            double[] prefix = instance.getTurnusPrefixDistances(t);
+            int length = prefix.length - 1;
+            reach[t] = new int[length];
+            int end = 0;
+            for (int p = 0; p < length; p++) {
+                end = Math.max(end, p);
+                while (end < length && prefix[end + 1] - prefix[p] <= maxDistance) {
+                    end++;
+                }
+                reach[t][p] = end;
+            }
+        }
+        return reach;
+    }
+
+    public static int countWindows(ProblemInstance instance, int[][] windowReach) {
+        int windows = 0;
+        for (int[] reach : windowReach) {
+            int p = 0;
+            while (p < reach.length && reach[p] < reach.length) {
+                windows++;
+                p = reach[p] + 1;
+            }
+        }
+        return windows;
+    }
+
+    public boolean build(Solution solution, double[] wiringProbability, double p0,
+                         SplittableRandom random) {
+        solution.clear();
+        if (reduction != null) {
+            reduction.applyTo(solution);
+        }
+        for (int t = 0; t < instance.getTurnusCount(); t++) {
+            walkTurnus(t, solution, wiringProbability, p0, random);
+        }
+        return repairer.repair(solution);
+    }
+
+    private void walkTurnus(int turnus, Solution solution, double[] wiringProbability,
+                            double p0, SplittableRandom random) {
+        int[] sequence = instance.getTurnusSegments(turnus);
+        int[] reach = windowReach[turnus];
+        double maxBattery = instance.getMaxBatteryCapacity();
+        double floor = instance.getBatteryFloor();
+        double consumptionRate = instance.getConsumptionRate();
+        double chargingRate = instance.getChargingRate();
+        double maxDistance = instance.getMaxDistanceWithoutCharging();
+
+        double battery = maxBattery;
+        double distance = 0;
+        int position = 0;
+
+        while (position < sequence.length) {
+            int count = 0;
+            int charged = -1;
+            double windowBattery = battery;
+            double windowDistance = distance;
+            int limit = Math.min(reach[position], sequence.length - 1);
+
+            for (int q = position; q <= limit; q++) {
+                int segment = sequence[q];
+                double predictedBattery = windowBattery - distances[segment] * consumptionRate;
+                if (predictedBattery < floor || predictedBattery <= 0) {
+                    break;
+                }
+                if (solution.get(segment)) {
+                    charged = q;
+                    break;
+                }
+                candidates[count++] = q;
+                windowDistance += distances[segment];
+                if (windowDistance > maxDistance) {
+                    break;
+                }
+                windowBattery = predictedBattery;
+            }
+
+            if (charged < 0) {
+                if (count > 0 && candidates[count - 1] == sequence.length - 1
+                        && windowDistance <= maxDistance && windowBattery >= floor) {
+                    return;
+                }
+                if (count == 0) {
+                    return;
+                }
+                charged = candidates[choose(sequence, count, wiringProbability, p0, random)];
+                solution.set(sequence[charged], true);
+            }
+
+            for (int q = position; q < charged; q++) {
+                battery -= distances[sequence[q]] * consumptionRate;
+                distance += distances[sequence[q]];
+            }
+            battery = Math.min(maxBattery, battery + distances[sequence[charged]] * chargingRate);
+            distance = 0;
+            position = charged + 1;
+        }
+    }
+
+    private int choose(int[] sequence, int count, double[] wiringProbability,
+                       double p0, SplittableRandom random) {
+        if (random.nextDouble() < p0) {
+            return random.nextInt(count);
+        }
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += wiringProbability[sequence[candidates[i]]];
+            weights[i] = total;
+        }
+        if (total <= 0) {
+            return count - 1;
+        }
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < count; i++) {
+            if (r < weights[i]) {
+                return i;
+            }
+        }
+        return count - 1;
+    }
+}
@@ -0,0 +1,78 @@
+package optimization;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+import model.Solution;
+import java.util.Arrays;
+
+// Optional source set, kept out of the main tree so a plain javac still builds everything else.
+// Compile it on top of the main classes and run with the module added:
+//   javac --add-modules jdk.incubator.vector -cp <main classes> -d <main classes> optional-vector/optimization/*.java
+//   java --add-modules jdk.incubator.vector ...
+// PheromoneKernels.create falls back to the scalar kernels when this class or the module is missing.
+// Only the generation deposit is vectorised; evaporation and masked length measured no faster
+// than the scalar loops, so they are inherited from ScalarPheromoneKernels.
+public class VectorPheromoneKernels extends ScalarPheromoneKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+    private static final double[] NIBBLES = new double[16 * LANES];   // 0/1 lanes of every 4-bit pattern
+
+    static {
+        for (int nibble = 0; nibble < 16; nibble++) {
+            for (int lane = 0; lane < LANES; lane++) {
+                NIBBLES[nibble * LANES + lane] = (nibble >>> lane & 1) != 0 ? 1.0 : 0.0;
+            }
+        }
+    }
+
+    private double[] wiredSums = new double[0];
+    private double[] unwiredSums = new double[0];
+
+    public VectorPheromoneKernels() {
+        if (SPECIES.length() != LANES) {
+            throw new IllegalStateException("unexpected vector length " + SPECIES.length());
+        }
+    }
+
+    @Override
+    public void deposit(double[] pheromones, int segmentCount, Solution[] solutions, double[] deposits, int count) {
+        if (wiredSums.length < segmentCount) {
+            wiredSums = new double[segmentCount];
+            unwiredSums = new double[segmentCount];
+        }
+        Arrays.fill(wiredSums, 0, segmentCount, 0.0);
+        Arrays.fill(unwiredSums, 0, segmentCount, 0.0);
+        int bound = SPECIES.loopBound(segmentCount);
+
+        for (int k = 0; k < count; k++) {
+            Solution solution = solutions[k];
+            DoubleVector deposit = DoubleVector.broadcast(SPECIES, deposits[k]);
+            int i = 0;
+            for (; i < bound; i += LANES) {
+                int nibble = (int) (solution.getWord(i >>> 6) >>> (i & 63)) & 0xF;
+                DoubleVector wired = DoubleVector.fromArray(SPECIES, NIBBLES, nibble * LANES);
+                DoubleVector unwired = DoubleVector.fromArray(SPECIES, NIBBLES, (nibble ^ 0xF) * LANES);
+                DoubleVector.fromArray(SPECIES, wiredSums, i).add(deposit.mul(wired)).intoArray(wiredSums, i);
+                DoubleVector.fromArray(SPECIES, unwiredSums, i).add(deposit.mul(unwired)).intoArray(unwiredSums, i);
+            }
+            for (; i < segmentCount; i++) {
+                if (solution.get(i)) {
+                    wiredSums[i] += deposits[k];
+                } else {
+                    unwiredSums[i] += deposits[k];
+                }
+            }
+        }
+
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, pheromones, i)
+                .add(DoubleVector.fromArray(SPECIES, unwiredSums, i)).intoArray(pheromones, i);
+            DoubleVector.fromArray(SPECIES, pheromones, segmentCount + i)
+                .add(DoubleVector.fromArray(SPECIES, wiredSums, i)).intoArray(pheromones, segmentCount + i);
+        }
+        for (; i < segmentCount; i++) {
+            pheromones[i] += unwiredSums[i];
+            pheromones[segmentCount + i] += wiredSums[i];
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package util;
 
+import model.Solution;
 import model.Turnus;
 import model.Usek;
 import java.io.*;
@@ -113,4 +114,64 @@ public class CSVParser {
         }
         return turnusy;
     }
+
+    // Reads a results file written by ACOSolverMain or CSVTuningLogger and returns the shortest
+    // solution it contains; segments are matched to useky by id and end nodes.
+    public static Solution parseSolution(String filePath, List<Usek> useky) throws IOException {
+        Map<Integer, List<Integer>> indicesById = new HashMap<>();
+        for (int i = 0; i < useky.size(); i++) {
+            indicesById.computeIfAbsent(useky.get(i).getId(), k -> new ArrayList<>()).add(i);
+        }
+
+        Solution best = null;
+        double bestLength = Double.MAX_VALUE;
+        Solution current = null;
+        double currentLength = Double.MAX_VALUE;
+        boolean inSegments = false;
+
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("Total Length:")) {
+                    if (current != null && currentLength <= bestLength) {
+                        best = current;
+                        bestLength = currentLength;
+                    }
+                    current = new Solution(useky.size());
+                    currentLength = Double.parseDouble(trimmed.replaceAll("[^0-9.,]", "").replace(",", "."));
+                    inSegments = false;
+                } else if (trimmed.startsWith("SegmentID;") || trimmed.startsWith("ID;")) {
+                    inSegments = current != null;
+                } else if (inSegments && !trimmed.isEmpty() && Character.isDigit(trimmed.charAt(0))) {
+                    String[] parts = cleanParts(trimmed.split(";"));
+                    List<Integer> candidates = indicesById.get(Integer.parseInt(parts[0]));
+                    if (candidates == null) {
+                        System.out.println("neznamy usek v rieseni: " + parts[0]);
+                        continue;
+                    }
+                    int index = candidates.get(0);
+                    for (int candidate : candidates) {
+                        Usek usek = useky.get(candidate);
+                        if (parts.length >= 3 && usek.getNode1Id() == Integer.parseInt(parts[1])
+                                && usek.getNode2Id() == Integer.parseInt(parts[2])) {
+                            index = candidate;
+                            break;
+                        }
+                    }
+                    current.set(index, true);
+                } else if (inSegments) {
+                    inSegments = false;
+                }
+            }
+        }
+        if (current != null && currentLength <= bestLength) {
+            best = current;
+        }
+        if (best == null) {
+            throw new IllegalStateException("nenajdene ziadne riesenie v subore");
+        }
+        return best;
+    }
 }
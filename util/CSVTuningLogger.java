@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
+import model.Solution;
 import model.Usek;
 
 public class CSVTuningLogger {
@@ -109,7 +110,7 @@ public class CSVTuningLogger {
         }
     }
 
-    public static void logBestSolution(List<Usek> useky, List<Boolean> solution, 
+    public static void logBestSolution(List<Usek> useky, Solution solution, 
                                      double totalLength, double computationTime,
                                      double alpha, double beta, double rho, 
                                      double q, double tau0, double p0, 
@@ -132,12 +133,10 @@ public class CSVTuningLogger {
             
             bw.write("\nWired segments:\n");
             bw.write("SegmentID;Node1;Node2;Distance\n");
-            for (int i = 0; i < solution.size(); i++) {
-                if (solution.get(i)) {
-                    Usek usek = useky.get(i);
-                    bw.write(String.format("%d;%d;%d;%.2f\n",
-                        usek.getId(), usek.getNode1Id(), usek.getNode2Id(), usek.getDistance()));
-                }
+            for (int i = solution.nextSetBit(0); i >= 0; i = solution.nextSetBit(i + 1)) {
+                Usek usek = useky.get(i);
+                bw.write(String.format("%d;%d;%d;%.2f\n",
+                    usek.getId(), usek.getNode1Id(), usek.getNode2Id(), usek.getDistance()));
             }
             bw.write("\n");
             